@@ -79,7 +79,7 @@ CREATE TABLE IF NOT EXISTS Prescriptions (
     PrescriptionID SERIAL PRIMARY KEY,
     PatientID INT NOT NULL,
     DoctorID INT NOT NULL,
-    PrescriptionDate DATE NOT NULL,
+    DateIssued DATE NOT NULL,
     Notes TEXT,
     CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UpdatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -93,11 +93,10 @@ CREATE TABLE IF NOT EXISTS Prescriptions (
 CREATE TABLE IF NOT EXISTS PrescriptionItems (
     ItemID SERIAL PRIMARY KEY,
     PrescriptionID INT NOT NULL,
-    MedicationName VARCHAR(100) NOT NULL,
-    Dosage VARCHAR(50) NOT NULL,
+    MedicineName VARCHAR(150) NOT NULL,
     Frequency VARCHAR(50) NOT NULL,
     Duration VARCHAR(50) NOT NULL,
-    CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Instructions TEXT,
     FOREIGN KEY (PrescriptionID) REFERENCES Prescriptions(PrescriptionID) ON DELETE CASCADE
 );
 
@@ -108,12 +107,13 @@ CREATE TABLE IF NOT EXISTS PatientFeedback (
     FeedbackID SERIAL PRIMARY KEY,
     PatientID INT NOT NULL,
     DoctorID INT NOT NULL,
+    DepartmentID INT NOT NULL,
     Rating INT CHECK (Rating BETWEEN 1 AND 5),
     Comments TEXT,
-    FeedbackDate DATE NOT NULL,
     CreatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (PatientID) REFERENCES Patient(PatientID) ON DELETE CASCADE,
-    FOREIGN KEY (DoctorID) REFERENCES Doctors(DoctorID) ON DELETE CASCADE
+    FOREIGN KEY (DoctorID) REFERENCES Doctors(DoctorID) ON DELETE CASCADE,
+    FOREIGN KEY (DepartmentID) REFERENCES Departments(DepartmentID)
 );
 
 -- ============================================
@@ -130,6 +130,21 @@ CREATE TABLE IF NOT EXISTS MedicalInventory (
     UpdatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- ============================================
+-- 10. AUDIT OUTBOX TABLE
+-- ============================================
+-- Audit entries written in the same transaction as the change they describe,
+-- then relayed to MongoDB (medical_logs) and deleted. No FK: entries outlive deleted patients.
+CREATE TABLE IF NOT EXISTS AuditOutbox (
+    OutboxID BIGSERIAL PRIMARY KEY,
+    LogID CHAR(24) NOT NULL,
+    PatientID INT,
+    Action VARCHAR(100) NOT NULL,
+    Details TEXT,
+    PerformedBy VARCHAR(100),
+    CreatedAt TIMESTAMP NOT NULL
+);
+
 -- ============================================
 -- INDEXES FOR PERFORMANCE
 -- ============================================
@@ -157,6 +172,11 @@ CREATE INDEX IF NOT EXISTS idx_department_name ON Departments(Name);
 CREATE INDEX IF NOT EXISTS idx_prescription_patient ON Prescriptions(PatientID);
 CREATE INDEX IF NOT EXISTS idx_prescription_doctor ON Prescriptions(DoctorID);
 
+-- Patient timeline indexes
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_timeline ON Appointments(PatientID, (AppointmentDate + AppointmentTime), AppointmentID);
+CREATE INDEX IF NOT EXISTS idx_prescription_patient_timeline ON Prescriptions(PatientID, DateIssued, PrescriptionID);
+CREATE INDEX IF NOT EXISTS idx_feedback_patient_timeline ON PatientFeedback(PatientID, CreatedAt, FeedbackID);
+
 -- ============================================
 -- SAMPLE DATA
 -- ============================================
@@ -0,0 +1,89 @@
+package org.example.benchmarks;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.example.models.Patient;
+import org.example.utils.CacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CacheManager read paths for a cached patient directory. The snapshot benchmarks are what screens do now;
+// the copying ones repeat what getList and the screens did before lists became shared snapshots (a copy in
+// getList, another into an observableArrayList). Compare allocation with the GC profiler:
+//   java -jar target/benchmarks.jar CacheListBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheListBenchmark {
+    private static final String KEY = "all_patients";
+
+    @Param({"1000", "200000"})
+    private int size;
+
+    private CacheManager<Integer, Patient> cache;
+    private int hotId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        cache = CacheManager.<Integer, Patient>builder()
+                .maximumSize(size)
+                .maximumListElements(size)
+                .listElements(Patient::getPatientID, Comparator.comparing(Patient::getPatientID))
+                .build();
+        List<Patient> patients = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Patient patient = new Patient("First" + i, "Last" + i, LocalDate.of(1980, 1, 1).plusDays(i % 10_000),
+                    i % 2 == 0 ? "Female" : "Male", "patient" + i + "@example.com", "555-" + i, i + " Main St");
+            patient.setPatientID(i);
+            patients.add(patient);
+            cache.put(i, patient);
+        }
+        cache.getListOrLoad(KEY, () -> patients);
+        hotId = size / 2;
+    }
+
+    @Benchmark
+    public List<Patient> snapshotRead() {
+        return cache.getList(KEY);
+    }
+
+    @Benchmark
+    public ObservableList<Patient> snapshotView() {
+        return FXCollections.observableList(cache.getList(KEY));
+    }
+
+    @Benchmark
+    public List<Patient> copyingRead() {
+        return new ArrayList<>(cache.getList(KEY));
+    }
+
+    @Benchmark
+    public ObservableList<Patient> copyingView() {
+        return FXCollections.observableArrayList(new ArrayList<>(cache.getList(KEY)));
+    }
+
+    // The per-ID hot path: a hit through the read-through API
+    @Benchmark
+    public Patient getOrLoadHit() throws SQLException {
+        return cache.getOrLoad(hotId, () -> null);
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.benchmarks;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.example.codecs.BsonFields;
+import org.example.codecs.MedicalLogCodec;
+import org.example.models.MedicalLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// One medical_logs entry to and from BSON. The codec benchmarks are what the typed collections and the spool do
+// now; the document ones repeat the mapping they replaced (a Document built from the model and written with the
+// driver's DocumentCodec, or read into a Document and copied field by field into the model). Compare with:
+//   java -jar target/benchmarks.jar MedicalLogCodecBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MedicalLogCodecBenchmark {
+    private static final EncoderContext ENCODE = EncoderContext.builder().build();
+    private static final DecoderContext DECODE = DecoderContext.builder().build();
+
+    // Short audit details, and a long free-text entry
+    @Param({"60", "2000"})
+    private int detailsLength;
+
+    private final Codec<MedicalLog> codec = new MedicalLogCodec();
+    private final Codec<Document> documentCodec = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+    private MedicalLog log;
+    private byte[] bson;
+
+    @Setup
+    public void setUp() {
+        log = new MedicalLog(42, "Updated patient", "x".repeat(detailsLength), "reception");
+        log.setId(new ObjectId().toHexString());
+        log.setTimestamp(LocalDateTime.of(2026, 1, 8, 10, 30, 15));
+        bson = encodeCodec();
+    }
+
+    @Benchmark
+    public byte[] encodeCodec() {
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(output)) {
+            codec.encode(writer, log, ENCODE);
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeDocument() {
+        Document doc = new Document("_id", new ObjectId(log.getId()))
+                .append("patientID", log.getPatientID())
+                .append("action", log.getAction())
+                .append("details", log.getDetails())
+                .append("performedBy", log.getPerformedBy())
+                .append("timestamp", BsonFields.toDate(log.getTimestamp()));
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(output)) {
+            documentCodec.encode(writer, doc, ENCODE);
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public MedicalLog decodeCodec() {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bson))) {
+            return codec.decode(reader, DECODE);
+        }
+    }
+
+    @Benchmark
+    public MedicalLog decodeDocument() {
+        Document doc;
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bson))) {
+            doc = documentCodec.decode(reader, DECODE);
+        }
+        MedicalLog decoded = new MedicalLog();
+        decoded.setId(doc.getObjectId("_id").toString());
+        decoded.setPatientID(doc.getInteger("patientID"));
+        decoded.setAction(doc.getString("action"));
+        decoded.setDetails(doc.getString("details"));
+        decoded.setPerformedBy(doc.getString("performedBy"));
+        decoded.setTimestamp(BsonFields.fromDate(doc.get("timestamp", Date.class)));
+        return decoded;
+    }
+}
@@ -5,6 +5,8 @@ import org.example.db.DatabaseInitializer;
 import org.example.models.*;
 import org.example.services.*;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -17,19 +19,23 @@ public class ConsoleApp {
     private static PatientService patientService;
     private static DoctorService doctorService;
     private static AppointmentService appointmentService;
+    private static RosterImportService rosterImportService;
 
     public static void main(String[] args) {
-        DBConfig dbConfig = new DBConfig();
+        DataSource dataSource = DBConfig.getDataSource();
 
-        try (Connection conn = dbConfig.connect()) {
+        try {
             System.out.println("=== Healthcare Management System ===\n");
-            DatabaseInitializer.initializeAll(conn);
+            try (Connection conn = dataSource.getConnection()) {
+                DatabaseInitializer.initializeAll(conn);
+            }
 
             // Initialize services
-            departmentService = DepartmentService.getInstance(conn);
-            patientService = PatientService.getInstance(conn);
-            doctorService = DoctorService.getInstance(conn);
-            appointmentService = AppointmentService.getInstance(conn);
+            departmentService = DepartmentService.getInstance(dataSource);
+            patientService = PatientService.getInstance(dataSource);
+            doctorService = DoctorService.getInstance(dataSource);
+            appointmentService = AppointmentService.getInstance(dataSource);
+            rosterImportService = RosterImportService.getInstance(dataSource);
 
             // Main menu loop
             boolean running = true;
@@ -42,6 +48,7 @@ public class ConsoleApp {
                     case 2 -> managePatients();
                     case 3 -> manageDoctors();
                     case 4 -> manageAppointments();
+                    case 5 -> bulkImport();
                     case 0 -> {
                         running = false;
                         System.out.println("Goodbye!");
@@ -53,6 +60,8 @@ public class ConsoleApp {
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            DBConfig.close();
         }
     }
 
@@ -62,6 +71,7 @@ public class ConsoleApp {
         System.out.println("2. Manage Patients");
         System.out.println("3. Manage Doctors");
         System.out.println("4. Manage Appointments");
+        System.out.println("5. Bulk Import Rosters (CSV)");
         System.out.println("0. Exit");
     }
 
@@ -330,6 +340,35 @@ public class ConsoleApp {
         System.out.println("Appointment deleted successfully!");
     }
 
+    private static void bulkImport() {
+        System.out.println("\n--- Bulk Import ---");
+        System.out.println("1. Import Patients");
+        System.out.println("2. Import Doctors");
+        int choice = getIntInput("Enter choice: ");
+        if (choice != 1 && choice != 2) {
+            return;
+        }
+
+        Path csvFile = Path.of(getStringInput("Enter CSV file path: "));
+        Path rejectFile = RosterImportService.rejectFileFor(csvFile);
+        ImportProgressListener listener = (stage, rowsRead, rowsRejected, fraction) ->
+            System.out.printf("\r[%3d%%] %s - %d read, %d rejected", Math.round(fraction * 100), stage, rowsRead, rowsRejected);
+
+        try {
+            ImportResult result = choice == 1
+                ? rosterImportService.importPatients(csvFile, rejectFile, listener)
+                : rosterImportService.importDoctors(csvFile, rejectFile, listener);
+            System.out.println();
+            System.out.println("Import finished! " + result);
+            if (result.getRowsRejected() > 0) {
+                System.out.println("Rejected rows written to: " + rejectFile);
+            }
+        } catch (Exception e) {
+            System.out.println();
+            System.err.println("Import failed: " + e.getMessage());
+        }
+    }
+
     // Helper methods
     private static String getStringInput(String prompt) {
         System.out.print(prompt);
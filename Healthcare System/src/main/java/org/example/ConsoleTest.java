@@ -5,15 +5,16 @@ import org.example.db.DatabaseInitializer;
 import org.example.models.*;
 import org.example.services.*;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 public class ConsoleTest {
     public static void main(String[] args) {
-        DBConfig dbConfig = new DBConfig();
+        DataSource dataSource = DBConfig.getDataSource();
 
-        try (Connection conn = dbConfig.connect()) {
+        try (Connection conn = dataSource.getConnection()) {
             System.out.println("=== Database Connection Established ===\n");
             
             // Initialize tables
@@ -21,10 +22,10 @@ public class ConsoleTest {
             System.out.println("=== Tables Initialized ===\n");
 
             // Initialize services
-            DepartmentService departmentService = DepartmentService.getInstance(conn);
-            PatientService patientService = PatientService.getInstance(conn);
-            DoctorService doctorService = DoctorService.getInstance(conn);
-            AppointmentService appointmentService = AppointmentService.getInstance(conn);
+            DepartmentService departmentService = DepartmentService.getInstance(dataSource);
+            PatientService patientService = PatientService.getInstance(dataSource);
+            DoctorService doctorService = DoctorService.getInstance(dataSource);
+            AppointmentService appointmentService = AppointmentService.getInstance(dataSource);
 
             // Test Department
             System.out.println("--- Testing Department Service ---");
@@ -66,6 +67,8 @@ public class ConsoleTest {
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            DBConfig.close();
         }
     }
 }
@@ -7,23 +7,37 @@ import javafx.stage.Stage;
 import org.example.config.DBConfig;
 import org.example.config.MongoDBConfig;
 import org.example.db.DatabaseInitializer;
+import org.example.services.AsyncServices;
+import org.example.services.AuditOutboxRelay;
+import org.example.services.CacheSyncListener;
+import org.example.services.MedicalLogService;
+import org.example.services.PatientNoteService;
+import org.example.services.StatisticsService;
 import org.example.utils.DataSeeder;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 
 public class HealthcareApp extends Application {
-    private static Connection connection;
+    private static DataSource dataSource;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
-        // Initialize database
-        DBConfig dbConfig = new DBConfig();
+        // Initialize connection pool and database
+        dataSource = DBConfig.getDataSource();
 
-        connection = dbConfig.connect();
-        DatabaseInitializer.initializeAll(connection);
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseInitializer.initializeAll(connection);
+        }
+        
+        // Keep caches in sync with changes made by other clients
+        CacheSyncListener.start(dataSource);
+
+        // Ship audit entries committed with PostgreSQL changes to MongoDB
+        AuditOutboxRelay.start(dataSource);
         
         // Seed sample data
-//        DataSeeder.seedData(connection);
+//        DataSeeder.seedData(dataSource);
 
         // Load login view
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/LoginView.fxml"));
@@ -38,14 +52,19 @@ public class HealthcareApp extends Application {
 
     @Override
     public void stop() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
-        }
+        AsyncServices.shutdown();
+        CacheSyncListener.shutdown();
+        StatisticsService.shutdown();
+        // Ship spooled notes and audit entries before the MongoDB client goes away
+        AuditOutboxRelay.shutdown();
+        MedicalLogService.shutdown();
+        PatientNoteService.shutdown();
+        DBConfig.close();
         MongoDBConfig.close();
     }
 
-    public static Connection getConnection() {
-        return connection;
+    public static DataSource getDataSource() {
+        return dataSource;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,92 @@
+package org.example.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+// Field readers and writers shared by the model codecs. Missing values are written as BSON null.
+public final class BsonFields {
+    private BsonFields() {
+    }
+
+    // Timestamps are stored as BSON dates in the JVM's time zone, the zone the LocalDateTime was taken in
+    public static Date toDate(LocalDateTime timestamp) {
+        return Date.from(timestamp.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static LocalDateTime fromDate(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    static void writeId(BsonWriter writer, String id) {
+        // Without an id the server assigns one
+        if (id != null) {
+            writer.writeObjectId("_id", new ObjectId(id));
+        }
+    }
+
+    static void writeInteger(BsonWriter writer, String name, Integer value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeInt32(name, value);
+        }
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeTimestamp(BsonWriter writer, String name, LocalDateTime value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDateTime(name, toDate(value).getTime());
+        }
+    }
+
+    static String readId(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.OBJECT_ID ? reader.readObjectId().toHexString() : readString(reader);
+    }
+
+    static Integer readInteger(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> (int) reader.readInt64();
+            case DOUBLE -> (int) reader.readDouble();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    // Documents from before the switch to BSON dates hold LocalDateTime.toString() values
+    static LocalDateTime readTimestamp(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DATE_TIME -> fromDate(new Date(reader.readDateTime()));
+            case STRING -> LocalDateTime.parse(reader.readString());
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+}
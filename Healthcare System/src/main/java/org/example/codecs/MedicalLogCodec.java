@@ -0,0 +1,50 @@
+package org.example.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.example.models.MedicalLog;
+
+// medical_logs documents <-> MedicalLog, straight between BSON and the model with no Document in between
+public class MedicalLogCodec implements Codec<MedicalLog> {
+    @Override
+    public void encode(BsonWriter writer, MedicalLog log, EncoderContext context) {
+        writer.writeStartDocument();
+        BsonFields.writeId(writer, log.getId());
+        BsonFields.writeInteger(writer, "patientID", log.getPatientID());
+        BsonFields.writeString(writer, "action", log.getAction());
+        BsonFields.writeString(writer, "details", log.getDetails());
+        BsonFields.writeString(writer, "performedBy", log.getPerformedBy());
+        BsonFields.writeTimestamp(writer, "timestamp", log.getTimestamp());
+        writer.writeEndDocument();
+    }
+
+    // Fields left out by a projection stay null
+    @Override
+    public MedicalLog decode(BsonReader reader, DecoderContext context) {
+        MedicalLog log = new MedicalLog();
+        log.setTimestamp(null);
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> log.setId(BsonFields.readId(reader));
+                case "patientID" -> log.setPatientID(BsonFields.readInteger(reader));
+                case "action" -> log.setAction(BsonFields.readString(reader));
+                case "details" -> log.setDetails(BsonFields.readString(reader));
+                case "performedBy" -> log.setPerformedBy(BsonFields.readString(reader));
+                case "timestamp" -> log.setTimestamp(BsonFields.readTimestamp(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return log;
+    }
+
+    @Override
+    public Class<MedicalLog> getEncoderClass() {
+        return MedicalLog.class;
+    }
+}
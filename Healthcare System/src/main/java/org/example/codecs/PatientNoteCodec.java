@@ -0,0 +1,50 @@
+package org.example.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.example.models.PatientNote;
+
+// patient_notes documents <-> PatientNote, straight between BSON and the model with no Document in between
+public class PatientNoteCodec implements Codec<PatientNote> {
+    @Override
+    public void encode(BsonWriter writer, PatientNote note, EncoderContext context) {
+        writer.writeStartDocument();
+        BsonFields.writeId(writer, note.getId());
+        BsonFields.writeInteger(writer, "patientID", note.getPatientID());
+        BsonFields.writeInteger(writer, "doctorID", note.getDoctorID());
+        BsonFields.writeString(writer, "note", note.getNote());
+        BsonFields.writeString(writer, "type", note.getType());
+        BsonFields.writeTimestamp(writer, "timestamp", note.getTimestamp());
+        writer.writeEndDocument();
+    }
+
+    // Fields left out by a projection stay null
+    @Override
+    public PatientNote decode(BsonReader reader, DecoderContext context) {
+        PatientNote note = new PatientNote();
+        note.setTimestamp(null);
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> note.setId(BsonFields.readId(reader));
+                case "patientID" -> note.setPatientID(BsonFields.readInteger(reader));
+                case "doctorID" -> note.setDoctorID(BsonFields.readInteger(reader));
+                case "note" -> note.setNote(BsonFields.readString(reader));
+                case "type" -> note.setType(BsonFields.readString(reader));
+                case "timestamp" -> note.setTimestamp(BsonFields.readTimestamp(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return note;
+    }
+
+    @Override
+    public Class<PatientNote> getEncoderClass() {
+        return PatientNote.class;
+    }
+}
@@ -1,5 +1,9 @@
 package org.example.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
 import java.sql.*;
 
 public class DBConfig {
@@ -8,6 +12,54 @@ public class DBConfig {
 //    private final String DBNAME = System.getenv("DB_NAME");
 //    private final String DBUSER = System.getenv("DB_USER");
 //    private final String DBPASSWORD = System.getenv("DB_PASSWORD");
+    private static final String URL = "jdbc:postgresql://localhost:5432/HealthCare";
+    private static final String USER = "postgres";
+    private static final String PASSWORD = "bece2018";
+
+    // Pool sizing and housekeeping
+    private static final int MAX_POOL_SIZE = 10;
+    private static final int MIN_IDLE = 2;
+    private static final long CONNECTION_TIMEOUT_MS = 10_000;
+    private static final long VALIDATION_TIMEOUT_MS = 3_000;
+    private static final long IDLE_TIMEOUT_MS = 300_000;
+    private static final long MAX_LIFETIME_MS = 1_800_000;
+    private static final long KEEPALIVE_MS = 120_000;
+    private static final long LEAK_DETECTION_MS = 30_000;
+
+    private static HikariDataSource dataSource;
+
+    // Shared connection pool; DAOs borrow a connection per operation
+    public static synchronized DataSource getDataSource() {
+        if (dataSource == null || dataSource.isClosed()) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("HealthcarePool");
+            config.setJdbcUrl(URL);
+            config.setUsername(USER);
+            config.setPassword(PASSWORD);
+            config.setMaximumPoolSize(MAX_POOL_SIZE);
+            config.setMinimumIdle(MIN_IDLE);
+            config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
+            config.setValidationTimeout(VALIDATION_TIMEOUT_MS);
+            config.setIdleTimeout(IDLE_TIMEOUT_MS);
+            config.setMaxLifetime(MAX_LIFETIME_MS);
+            config.setKeepaliveTime(KEEPALIVE_MS);
+            config.setLeakDetectionThreshold(LEAK_DETECTION_MS);
+            // Start even if the database is down; connections are (re)established on demand
+            config.setInitializationFailTimeout(-1);
+            config.addDataSourceProperty("reWriteBatchedInserts", "true");
+            dataSource = new HikariDataSource(config);
+            System.out.println("✓ PostgreSQL connection pool started (max " + MAX_POOL_SIZE + " connections)");
+        }
+        return dataSource;
+    }
+
+    public static synchronized void close() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+            System.out.println("✓ PostgreSQL connection pool closed");
+        }
+    }
+
 //jdbc connection
     public Connection connect() throws SQLException {
 //        if(DBPASSWORD == null) {
@@ -15,8 +67,7 @@ public class DBConfig {
 //        }
         try{
 //            String url = String.format("jdbc:postgresql://%s:%s/%s", DBHOST, DBPORT, DBNAME);
-            String url = "jdbc:postgresql://localhost:5432/HealthCare";
-            return DriverManager.getConnection(url, "postgres", "bece2018");
+            return DriverManager.getConnection(URL, USER, PASSWORD);
         } catch (SQLException e) {
             throw new SQLException("Failed to connect to the database: " + e.getMessage(), e);
         }
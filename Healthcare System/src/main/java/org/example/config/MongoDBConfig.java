@@ -1,27 +1,47 @@
 package org.example.config;
 
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.example.codecs.MedicalLogCodec;
+import org.example.codecs.PatientNoteCodec;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class MongoDBConfig {
     private static final String CONNECTION_STRING = "mongodb://localhost:27017/logsdb";
     private static final String DATABASE_NAME = "logs";
+    // Local write-ahead spool for notes and audit logs, shipped to MongoDB in the background
+    private static final Path SPOOL_DIRECTORY = Paths.get(System.getProperty("user.home"), ".healthcare", "spool");
     private static MongoClient mongoClient;
     private static MongoDatabase database;
 
-    public static MongoDatabase getDatabase() {
+    // Shared client; synchronized like DBConfig.getDataSource so concurrent first callers create only one
+    public static synchronized MongoDatabase getDatabase() {
         if (database == null) {
             mongoClient = MongoClients.create(CONNECTION_STRING);
-            database = mongoClient.getDatabase(DATABASE_NAME);
+            // The model codecs come first; everything else (Document, Bson filters) uses the driver defaults
+            database = mongoClient.getDatabase(DATABASE_NAME).withCodecRegistry(CodecRegistries.fromRegistries(
+                    CodecRegistries.fromCodecs(new MedicalLogCodec(), new PatientNoteCodec()),
+                    MongoClientSettings.getDefaultCodecRegistry()));
             System.out.println("✓ Connected to MongoDB database: " + DATABASE_NAME);
         }
         return database;
     }
 
-    public static void close() {
+    public static Path getSpoolDirectory() {
+        return SPOOL_DIRECTORY;
+    }
+
+    public static synchronized void close() {
         if (mongoClient != null) {
             mongoClient.close();
+            // Like DBConfig, a later getDatabase() reconnects instead of handing out the closed client
+            mongoClient = null;
+            database = null;
             System.out.println("✓ MongoDB connection closed");
         }
     }
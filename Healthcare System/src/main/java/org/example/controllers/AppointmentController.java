@@ -1,18 +1,22 @@
 package org.example.controllers;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import org.example.HealthcareApp;
+import org.example.dao.PageRequest;
+import org.example.dao.SortOrder;
 import org.example.models.*;
 import org.example.services.*;
 import org.example.utils.ValidationException;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class AppointmentController {
     @FXML private TableView<AppointmentView> appointmentTable;
@@ -23,24 +27,44 @@ public class AppointmentController {
     @FXML private TableColumn<AppointmentView, String> colTime;
     @FXML private TableColumn<AppointmentView, String> colStatus;
 
+    @FXML private TextField txtPatientLookup;
     @FXML private ComboBox<PatientItem> cbPatient;
+    @FXML private TextField txtDoctorLookup;
     @FXML private ComboBox<DoctorItem> cbDoctor;
     @FXML private DatePicker dpDate;
     @FXML private TextField txtTime;
     @FXML private ComboBox<String> cbStatus;
+    @FXML private DatePicker dpFilterFrom;
+    @FXML private DatePicker dpFilterTo;
+    @FXML private ComboBox<String> cbFilterStatus;
+    @FXML private Button btnPrevPage;
+    @FXML private Button btnNextPage;
+    @FXML private Label lblPageInfo;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int LOOKUP_LIMIT = 50;
+    private static final String ALL_STATUSES = "All";
 
     private AppointmentService appointmentService;
     private PatientService patientService;
     private DoctorService doctorService;
-    
-    private Map<Integer, String> patientMap = new HashMap<>();
-    private Map<Integer, String> doctorMap = new HashMap<>();
+
+    private AppointmentFilter currentFilter = AppointmentFilter.none();
+    private Page<AppointmentView> currentPage;
+    private Integer currentCursor;
+    private final List<Integer> previousCursors = new ArrayList<>();
+    private Task<Page<AppointmentView>> pageLoad;
+    private SearchDebouncer<Lookup<PatientItem>> patientLookup;
+    private SearchDebouncer<Lookup<DoctorItem>> doctorLookup;
+
+    // Lookup matches; open is set for Enter, which also selects the first match and opens the list
+    private record Lookup<I>(List<I> items, boolean open) {}
 
     @FXML
     public void initialize() {
-        appointmentService = AppointmentService.getInstance(HealthcareApp.getConnection());
-        patientService = PatientService.getInstance(HealthcareApp.getConnection());
-        doctorService = DoctorService.getInstance(HealthcareApp.getConnection());
+        appointmentService = AppointmentService.getInstance(HealthcareApp.getDataSource());
+        patientService = PatientService.getInstance(HealthcareApp.getDataSource());
+        doctorService = DoctorService.getInstance(HealthcareApp.getDataSource());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
         colPatientName.setCellValueFactory(new PropertyValueFactory<>("patientName"));
@@ -50,32 +74,30 @@ public class AppointmentController {
         colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
 
         cbStatus.setItems(FXCollections.observableArrayList("Scheduled", "Completed", "Cancelled"));
+        cbFilterStatus.setItems(FXCollections.observableArrayList(ALL_STATUSES, "Scheduled", "Completed", "Cancelled"));
+        cbFilterStatus.setValue(ALL_STATUSES);
+        patientLookup = new SearchDebouncer<>(this::showPatientLookup,
+                e -> showAlert("Error", "Failed to search patients: " + e.getMessage(), Alert.AlertType.ERROR));
+        doctorLookup = new SearchDebouncer<>(this::showDoctorLookup,
+                e -> showAlert("Error", "Failed to search doctors: " + e.getMessage(), Alert.AlertType.ERROR));
+        txtPatientLookup.textProperty().addListener((obs, oldText, newText) -> refreshPatientLookup(false));
+        txtDoctorLookup.textProperty().addListener((obs, oldText, newText) -> refreshDoctorLookup(false));
 
-        loadPatients();
-        loadDoctors();
         loadAppointments();
     }
 
     @FXML
     private void handleAdd() {
-        try {
-            Appointment appointment = new Appointment(
-                cbPatient.getValue().getId(),
-                cbDoctor.getValue().getId(),
-                dpDate.getValue(),
-                LocalTime.parse(txtTime.getText()),
-                cbStatus.getValue()
-            );
-
-            appointmentService.scheduleAppointment(appointment);
+        Appointment appointment = readForm();
+        if (appointment == null) {
+            return;
+        }
+
+        BackgroundTask.run(() -> appointmentService.scheduleAppointment(appointment), () -> {
             showAlert("Success", "Appointment scheduled successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadAppointments();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to schedule appointment: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to schedule appointment", e));
     }
 
     @FXML
@@ -86,25 +108,39 @@ public class AppointmentController {
             return;
         }
 
-        try {
-            Appointment appointment = new Appointment(
-                cbPatient.getValue().getId(),
-                cbDoctor.getValue().getId(),
-                dpDate.getValue(),
-                LocalTime.parse(txtTime.getText()),
-                cbStatus.getValue()
-            );
-            appointment.setAppointmentID(selected.getAppointmentID());
-
-            appointmentService.updateAppointment(appointment);
+        Appointment appointment = readForm();
+        if (appointment == null) {
+            return;
+        }
+        appointment.setAppointmentID(selected.getAppointmentID());
+
+        BackgroundTask.run(() -> appointmentService.updateAppointment(appointment), () -> {
             showAlert("Success", "Appointment updated successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadAppointments();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to update appointment: " + e.getMessage(), Alert.AlertType.ERROR);
+        }, e -> showFailure("Failed to update appointment", e));
+    }
+
+    // Form values are read on the FX thread; returns null after telling the user what is missing
+    private Appointment readForm() {
+        if (cbPatient.getValue() == null || cbDoctor.getValue() == null) {
+            showAlert("Validation Error", "Please select a patient and a doctor", Alert.AlertType.ERROR);
+            return null;
+        }
+        LocalTime time;
+        try {
+            time = LocalTime.parse(txtTime.getText());
+        } catch (DateTimeParseException e) {
+            showAlert("Validation Error", "Time must be in HH:MM format", Alert.AlertType.ERROR);
+            return null;
         }
+        return new Appointment(
+            cbPatient.getValue().getId(),
+            cbDoctor.getValue().getId(),
+            dpDate.getValue(),
+            time,
+            cbStatus.getValue()
+        );
     }
 
     @FXML
@@ -115,14 +151,11 @@ public class AppointmentController {
             return;
         }
 
-        try {
-            appointmentService.cancelAppointment(selected.getAppointmentID());
+        BackgroundTask.run(() -> appointmentService.cancelAppointment(selected.getAppointmentID()), () -> {
             showAlert("Success", "Appointment cancelled successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadAppointments();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to cancel appointment: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to cancel appointment", e));
     }
 
     @FXML
@@ -133,33 +166,25 @@ public class AppointmentController {
             return;
         }
 
-        try {
-            appointmentService.deleteAppointment(selected.getAppointmentID());
+        BackgroundTask.run(() -> appointmentService.deleteAppointment(selected.getAppointmentID()), () -> {
             showAlert("Success", "Appointment deleted successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadAppointments();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to delete appointment: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to delete appointment", e));
     }
 
     @FXML
     private void handleTableClick() {
         AppointmentView selected = appointmentTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            for (PatientItem item : cbPatient.getItems()) {
-                if (item.getId().equals(selected.getPatientID())) {
-                    cbPatient.setValue(item);
-                    break;
-                }
-            }
-            
-            for (DoctorItem item : cbDoctor.getItems()) {
-                if (item.getId().equals(selected.getDoctorID())) {
-                    cbDoctor.setValue(item);
-                    break;
-                }
-            }
+            // The view row already carries both names, so no directory lookup is needed
+            PatientItem patient = new PatientItem(selected.getPatientID(), selected.getPatientName());
+            cbPatient.setItems(FXCollections.observableArrayList(patient));
+            cbPatient.setValue(patient);
+
+            DoctorItem doctor = new DoctorItem(selected.getDoctorID(), selected.getDoctorName());
+            cbDoctor.setItems(FXCollections.observableArrayList(doctor));
+            cbDoctor.setValue(doctor);
             
             dpDate.setValue(selected.getAppointmentDate());
             txtTime.setText(selected.getAppointmentTime().toString());
@@ -167,72 +192,147 @@ public class AppointmentController {
         }
     }
 
-    private void loadAppointments() {
-        try {
-            List<Appointment> appointments = appointmentService.getAllAppointments();
-            List<AppointmentView> appointmentViews = appointments.stream()
-                .map(a -> new AppointmentView(
-                    a.getAppointmentID(),
-                    a.getPatientID(),
-                    patientMap.getOrDefault(a.getPatientID(), "Unknown"),
-                    a.getDoctorID(),
-                    doctorMap.getOrDefault(a.getDoctorID(), "Unknown"),
-                    a.getAppointmentDate(),
-                    a.getAppointmentTime(),
-                    a.getStatus()
-                ))
-                .toList();
-            
-            appointmentTable.setItems(FXCollections.observableArrayList(appointmentViews));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load appointments: " + e.getMessage(), Alert.AlertType.ERROR);
+    @FXML
+    private void handlePatientLookup() {
+        refreshPatientLookup(true);
+    }
+
+    // Runs on every keystroke (debounced) as well as on Enter. Matching happens in PostgreSQL, so the form never
+    // loads the patient or doctor directory; only the top matches come back, off the FX thread.
+    private void refreshPatientLookup(boolean open) {
+        String query = txtPatientLookup.getText();
+        SearchDebouncer.Query<Lookup<PatientItem>> task = () -> new Lookup<>(patientService.searchPatients(query, LOOKUP_LIMIT).stream()
+            .map(p -> new PatientItem(p.getPatientID(), p.getFirstName(), p.getLastName()))
+            .toList(), open);
+        if (open) {
+            patientLookup.submitNow(task);
+        } else {
+            patientLookup.submit(task);
         }
     }
 
-    private void loadPatients() {
-        try {
-            List<Patient> patients = patientService.getAllPatients();
-            
-            // Build patient map
-            patientMap.clear();
-            for (Patient p : patients) {
-                patientMap.put(p.getPatientID(), p.getFirstName() + " " + p.getLastName());
-            }
-            
-            // Load combo box
-            cbPatient.setItems(FXCollections.observableArrayList(
-                patients.stream()
-                    .map(p -> new PatientItem(p.getPatientID(), p.getFirstName(), p.getLastName()))
-                    .toList()
-            ));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load patients: " + e.getMessage(), Alert.AlertType.ERROR);
+    private void showPatientLookup(Lookup<PatientItem> lookup) {
+        cbPatient.setItems(FXCollections.observableArrayList(lookup.items()));
+        if (lookup.open() && !lookup.items().isEmpty()) {
+            cbPatient.setValue(lookup.items().get(0));
+            cbPatient.show();
         }
     }
 
-    private void loadDoctors() {
-        try {
-            List<Doctor> doctors = doctorService.getAllDoctors();
-            
-            // Build doctor map
-            doctorMap.clear();
-            for (Doctor d : doctors) {
-                doctorMap.put(d.getDoctorID(), "Dr. " + d.getFirstName() + " " + d.getLastName());
-            }
-            
-            // Load combo box
-            cbDoctor.setItems(FXCollections.observableArrayList(
-                doctors.stream()
-                    .map(d -> new DoctorItem(d.getDoctorID(), d.getFirstName(), d.getLastName()))
-                    .toList()
-            ));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load doctors: " + e.getMessage(), Alert.AlertType.ERROR);
+    @FXML
+    private void handleDoctorLookup() {
+        refreshDoctorLookup(true);
+    }
+
+    private void refreshDoctorLookup(boolean open) {
+        String query = txtDoctorLookup.getText();
+        SearchDebouncer.Query<Lookup<DoctorItem>> task = () -> new Lookup<>(doctorService.searchDoctors(query, LOOKUP_LIMIT).stream()
+            .map(d -> new DoctorItem(d.getDoctorID(), d.getFirstName(), d.getLastName()))
+            .toList(), open);
+        if (open) {
+            doctorLookup.submitNow(task);
+        } else {
+            doctorLookup.submit(task);
+        }
+    }
+
+    private void showDoctorLookup(Lookup<DoctorItem> lookup) {
+        cbDoctor.setItems(FXCollections.observableArrayList(lookup.items()));
+        if (lookup.open() && !lookup.items().isEmpty()) {
+            cbDoctor.setValue(lookup.items().get(0));
+            cbDoctor.show();
+        }
+    }
+
+    @FXML
+    private void handleApplyFilter() {
+        String status = cbFilterStatus.getValue();
+        currentFilter = new AppointmentFilter(
+            dpFilterFrom.getValue(),
+            dpFilterTo.getValue(),
+            status == null || ALL_STATUSES.equals(status) ? null : status
+        );
+        loadFirstPage();
+    }
+
+    // Today's schedule is served from the service's day bucket
+    @FXML
+    private void handleTodayFilter() {
+        dpFilterFrom.setValue(LocalDate.now());
+        dpFilterTo.setValue(LocalDate.now());
+        handleApplyFilter();
+    }
+
+    @FXML
+    private void handleClearFilter() {
+        dpFilterFrom.setValue(null);
+        dpFilterTo.setValue(null);
+        cbFilterStatus.setValue(ALL_STATUSES);
+        currentFilter = AppointmentFilter.none();
+        loadFirstPage();
+    }
+
+    @FXML
+    private void handleNextPage() {
+        if (currentPage == null || !currentPage.hasMore()) {
+            return;
+        }
+        previousCursors.add(currentCursor);
+        loadPage(currentPage.getNextCursor());
+    }
+
+    @FXML
+    private void handlePrevPage() {
+        if (previousCursors.isEmpty()) {
+            return;
         }
+        loadPage(previousCursors.remove(previousCursors.size() - 1));
+    }
+
+    // Reloads the page currently on screen
+    private void loadAppointments() {
+        loadPage(currentCursor);
+    }
+
+    private void loadFirstPage() {
+        previousCursors.clear();
+        loadPage(null);
+    }
+
+    private void loadPage(Integer cursor) {
+        // A newer page or filter supersedes whatever is still loading
+        if (pageLoad != null) {
+            pageLoad.cancel();
+        }
+        btnPrevPage.setDisable(true);
+        btnNextPage.setDisable(true);
+        lblPageInfo.setText("Loading...");
+
+        AppointmentFilter filter = currentFilter;
+        pageLoad = BackgroundTask.load(appointmentTable,
+            () -> appointmentService.getAppointmentViews(filter, new PageRequest(cursor, PAGE_SIZE, SortOrder.DESC)),
+            page -> {
+                currentPage = page;
+                currentCursor = cursor;
+                appointmentTable.setItems(FXCollections.observableArrayList(page.getItems()));
+                updatePageControls();
+            },
+            e -> {
+                lblPageInfo.setText("Could not load appointments");
+                showAlert("Error", "Failed to load appointments: " + e.getMessage(), Alert.AlertType.ERROR);
+            });
+    }
+
+    private void updatePageControls() {
+        btnPrevPage.setDisable(previousCursors.isEmpty());
+        btnNextPage.setDisable(!currentPage.hasMore());
+        lblPageInfo.setText("Page " + (previousCursors.size() + 1) + " (" + currentPage.size() + " records)");
     }
 
     private void clearForm() {
+        txtPatientLookup.clear();
         cbPatient.setValue(null);
+        txtDoctorLookup.clear();
         cbDoctor.setValue(null);
         dpDate.setValue(null);
         txtTime.clear();
@@ -246,4 +346,12 @@ public class AppointmentController {
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    private void showFailure(String action, Throwable e) {
+        if (e instanceof ValidationException) {
+            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
+        } else {
+            showAlert("Error", action + ": " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 }
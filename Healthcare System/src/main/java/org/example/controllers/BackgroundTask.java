@@ -0,0 +1,54 @@
+package org.example.controllers;
+
+import javafx.concurrent.Task;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import javafx.scene.Node;
+import org.example.services.AsyncServices;
+
+import java.util.function.Consumer;
+
+// Runs a service call as a javafx.concurrent.Task on the AsyncServices virtual-thread executor.
+// The success and failure callbacks are delivered on the FX thread. A cancelled task delivers neither.
+final class BackgroundTask {
+    private static final String PLACEHOLDER_KEY = "backgroundTask.placeholder";
+
+    private BackgroundTask() {
+    }
+
+    static <T> Task<T> run(AsyncServices.Call<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return call.call();
+            }
+        };
+        task.setOnSucceeded(event -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(event -> onFailure.accept(task.getException()));
+        AsyncServices.executor().execute(task);
+        return task;
+    }
+
+    static Task<Void> run(AsyncServices.Action action, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        return run(() -> {
+            action.run();
+            return null;
+        }, result -> onSuccess.run(), onFailure);
+    }
+
+    // Shows "Loading..." in an empty table until the task finishes
+    static <T> Task<T> load(TableView<?> table, AsyncServices.Call<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        // Remember the screen's own placeholder once, so overlapping loads cannot restore "Loading..."
+        if (!table.getProperties().containsKey(PLACEHOLDER_KEY)) {
+            table.getProperties().put(PLACEHOLDER_KEY, table.getPlaceholder());
+        }
+        table.setPlaceholder(new Label("Loading..."));
+        Task<T> task = run(call, onSuccess, onFailure);
+        task.runningProperty().addListener((obs, wasRunning, running) -> {
+            if (!running) {
+                table.setPlaceholder((Node) table.getProperties().get(PLACEHOLDER_KEY));
+            }
+        });
+        return task;
+    }
+}
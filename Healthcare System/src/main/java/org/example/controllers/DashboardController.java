@@ -1,11 +1,16 @@
 package org.example.controllers;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import org.example.HealthcareApp;
-import org.example.dao.AppointmentDAO;
-import org.example.dao.DoctorDAO;
-import org.example.dao.PatientDAO;
+import org.example.models.DashboardStats;
+import org.example.services.AsyncServices;
+import org.example.services.StatisticsService;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 public class DashboardController {
     @FXML
@@ -14,23 +19,78 @@ public class DashboardController {
     private Label lblDoctorCount;
     @FXML
     private Label lblAppointmentCount;
+    @FXML
+    private Label lblDepartmentCount;
+    @FXML
+    private Label lblTodayCount;
+    @FXML
+    private Label lblWeekCount;
+    @FXML
+    private Label lblScheduledCount;
+    @FXML
+    private Label lblCompletedCount;
+    @FXML
+    private Label lblCancelledCount;
+    @FXML
+    private ListView<String> lvDepartmentLoad;
+    @FXML
+    private Label lblLastUpdated;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private StatisticsService statisticsService;
 
     @FXML
     public void initialize() {
-        loadStatistics();
-    }
+        statisticsService = StatisticsService.getInstance(HealthcareApp.getDataSource());
 
-    private void loadStatistics() {
-        try {
-            PatientDAO patientDAO = new PatientDAO(HealthcareApp.getConnection());
-            DoctorDAO doctorDAO = new DoctorDAO(HealthcareApp.getConnection());
-            AppointmentDAO appointmentDAO = new AppointmentDAO(HealthcareApp.getConnection());
-
-            lblPatientCount.setText(String.valueOf(patientDAO.findAll().size()));
-            lblDoctorCount.setText(String.valueOf(doctorDAO.findAll().size()));
-            lblAppointmentCount.setText(String.valueOf(appointmentDAO.findAll().size()));
-        } catch (Exception e) {
-            e.printStackTrace();
+        // Show the cached figures immediately; only a cold start has to wait for the database
+        DashboardStats cached = statisticsService.getCachedStatistics();
+        if (cached != null) {
+            showStatistics(cached);
+        } else {
+            loadStatistics(false);
         }
     }
+
+    @FXML
+    private void handleRefresh() {
+        loadStatistics(true);
+    }
+
+    private void loadStatistics(boolean forceRefresh) {
+        lblLastUpdated.setText("Loading...");
+        Task<DashboardStats> task = new Task<>() {
+            @Override
+            protected DashboardStats call() throws Exception {
+                return forceRefresh ? statisticsService.refresh() : statisticsService.getStatistics();
+            }
+        };
+        task.setOnSucceeded(event -> showStatistics(task.getValue()));
+        task.setOnFailed(event -> {
+            task.getException().printStackTrace();
+            lblLastUpdated.setText("Could not load statistics");
+        });
+
+        AsyncServices.executor().execute(task);
+    }
+
+    private void showStatistics(DashboardStats stats) {
+        lblPatientCount.setText(String.valueOf(stats.getPatientCount()));
+        lblDoctorCount.setText(String.valueOf(stats.getDoctorCount()));
+        lblAppointmentCount.setText(String.valueOf(stats.getAppointmentCount()));
+        lblDepartmentCount.setText(String.valueOf(stats.getDepartmentCount()));
+        lblTodayCount.setText(String.valueOf(stats.getAppointmentsToday()));
+        lblWeekCount.setText(String.valueOf(stats.getAppointmentsThisWeek()));
+        lblScheduledCount.setText(String.valueOf(stats.getAppointmentsWithStatus("Scheduled")));
+        lblCompletedCount.setText(String.valueOf(stats.getAppointmentsWithStatus("Completed")));
+        lblCancelledCount.setText(String.valueOf(stats.getAppointmentsWithStatus("Cancelled")));
+
+        lvDepartmentLoad.getItems().clear();
+        stats.getAppointmentsByDepartment().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> lvDepartmentLoad.getItems().add(entry.getKey() + " — " + entry.getValue() + " appointments"));
+
+        lblLastUpdated.setText("Last updated " + stats.getLoadedAt().format(TIME_FORMAT));
+    }
 }
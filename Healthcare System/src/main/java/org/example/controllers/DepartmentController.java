@@ -1,6 +1,8 @@
 package org.example.controllers;
 
 import javafx.collections.FXCollections;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -23,60 +25,66 @@ public class DepartmentController {
     @FXML private TextField txtSearch;
 
     private DepartmentService departmentService;
-    private List<Department> allDepartments;
+    private FilteredList<Department> departmentView;
+    // The cached snapshot behind departmentView; a new one only arrives after the cache changed
+    private List<Department> shownDepartments;
+    private SearchDebouncer<List<Department>> search;
 
     @FXML
     public void initialize() {
-        departmentService = DepartmentService.getInstance(HealthcareApp.getConnection());
+        departmentService = DepartmentService.getInstance(HealthcareApp.getDataSource());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("departmentID"));
         colName.setCellValueFactory(new PropertyValueFactory<>("name"));
         colDescription.setCellValueFactory(new PropertyValueFactory<>("description"));
 
+        search = new SearchDebouncer<>(this::showMatches,
+                e -> showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR));
+        txtSearch.textProperty().addListener((obs, oldText, newText) -> startSearch(false));
+
         loadDepartments();
     }
 
     @FXML
     private void handleSearch() {
-        try {
-            String query = txtSearch.getText();
-            
-            // Ensure data is loaded
-            if (allDepartments == null) {
-                allDepartments = departmentService.getAllDepartments();
-            }
-            
-            if (query == null || query.trim().isEmpty()) {
-                departmentTable.setItems(FXCollections.observableArrayList(allDepartments));
-                return;
-            }
-            
-            List<Department> filtered = SearchUtil.searchDepartments(allDepartments, query);
-            departmentTable.setItems(FXCollections.observableArrayList(filtered));
-        } catch (Exception e) {
-            showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR);
+        startSearch(true);
+    }
+
+    // Runs on every keystroke (debounced) and on Enter. Only fetching the snapshot can hit the database,
+    // so that happens in the background; filtering just swaps the predicate on the FX thread.
+    private void startSearch(boolean now) {
+        SearchDebouncer.Query<List<Department>> task = departmentService::getAllDepartments;
+        if (now) {
+            search.submitNow(task);
+        } else {
+            search.submit(task);
         }
     }
 
+    private void showMatches(List<Department> departments) {
+        String query = txtSearch.getText();
+        if (departments != shownDepartments) {
+            showDepartments(departments);
+        }
+        // Filtering only swaps the predicate; the cached list is never copied
+        departmentView.setPredicate(query == null || query.trim().isEmpty() ? null : SearchUtil.departmentMatcher(query));
+    }
+
     @FXML
     private void handleClearSearch() {
         txtSearch.clear();
+        search.cancel();
         loadDepartments();
     }
 
     @FXML
     private void handleAdd() {
-        try {
-            Department department = new Department(txtName.getText(), txtDescription.getText());
-            departmentService.addDepartment(department);
+        Department department = new Department(txtName.getText(), txtDescription.getText());
+        BackgroundTask.run(() -> departmentService.addDepartment(department), () -> {
             showAlert("Success", "Department added successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDepartments();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to add department: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to add department", e));
     }
 
     @FXML
@@ -87,18 +95,13 @@ public class DepartmentController {
             return;
         }
 
-        try {
-            selected.setName(txtName.getText());
-            selected.setDescription(txtDescription.getText());
-            departmentService.updateDepartment(selected);
+        selected.setName(txtName.getText());
+        selected.setDescription(txtDescription.getText());
+        BackgroundTask.run(() -> departmentService.updateDepartment(selected), () -> {
             showAlert("Success", "Department updated successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDepartments();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to update department: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to update department", e));
     }
 
     @FXML
@@ -109,14 +112,11 @@ public class DepartmentController {
             return;
         }
 
-        try {
-            departmentService.deleteDepartment(selected.getDepartmentID());
+        BackgroundTask.run(() -> departmentService.deleteDepartment(selected.getDepartmentID()), () -> {
             showAlert("Success", "Department deleted successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDepartments();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to delete department: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to delete department", e));
     }
 
     @FXML
@@ -129,12 +129,18 @@ public class DepartmentController {
     }
 
     private void loadDepartments() {
-        try {
-            allDepartments = departmentService.getAllDepartments();
-            departmentTable.setItems(FXCollections.observableArrayList(allDepartments));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load departments: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        // The table views the cached immutable snapshot directly; FilteredList and SortedList
+        // only keep index mappings, so searching and column sorting never copy the list
+        BackgroundTask.load(departmentTable, departmentService::getAllDepartments, this::showMatches,
+            e -> showAlert("Error", "Failed to load departments: " + e.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    private void showDepartments(List<Department> departments) {
+        shownDepartments = departments;
+        departmentView = new FilteredList<>(FXCollections.observableList(departments));
+        SortedList<Department> sorted = new SortedList<>(departmentView);
+        sorted.comparatorProperty().bind(departmentTable.comparatorProperty());
+        departmentTable.setItems(sorted);
     }
 
     private void clearForm() {
@@ -149,4 +155,12 @@ public class DepartmentController {
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    private void showFailure(String action, Throwable e) {
+        if (e instanceof ValidationException) {
+            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
+        } else {
+            showAlert("Error", action + ": " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 }
@@ -1,17 +1,22 @@
 package org.example.controllers;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import org.example.HealthcareApp;
+import org.example.dao.SortOrder;
 import org.example.models.Doctor;
+import org.example.models.Page;
 import org.example.models.DepartmentItem;
 import org.example.services.DoctorService;
 import org.example.services.DepartmentService;
-import org.example.utils.SearchUtil;
+import org.example.services.RosterImportService;
 import org.example.utils.ValidationException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class DoctorController {
@@ -29,15 +34,25 @@ public class DoctorController {
     @FXML private TextField txtEmail;
     @FXML private DatePicker dpHireDate;
     @FXML private TextField txtSearch;
+    @FXML private Button btnPrevPage;
+    @FXML private Button btnNextPage;
+    @FXML private Label lblPageInfo;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 100;
 
     private DoctorService doctorService;
     private DepartmentService departmentService;
-    private List<Doctor> allDoctors;
+    private Page<Doctor> currentPage;
+    private Integer currentCursor;
+    private final List<Integer> previousCursors = new ArrayList<>();
+    private SearchDebouncer<List<Doctor>> search;
+    private Task<Page<Doctor>> pageLoad;
 
     @FXML
     public void initialize() {
-        doctorService = DoctorService.getInstance(HealthcareApp.getConnection());
-        departmentService = DepartmentService.getInstance(HealthcareApp.getConnection());
+        doctorService = DoctorService.getInstance(HealthcareApp.getDataSource());
+        departmentService = DepartmentService.getInstance(HealthcareApp.getDataSource());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("doctorID"));
         colFirstName.setCellValueFactory(new PropertyValueFactory<>("firstName"));
@@ -45,59 +60,106 @@ public class DoctorController {
         colEmail.setCellValueFactory(new PropertyValueFactory<>("email"));
         colPhone.setCellValueFactory(new PropertyValueFactory<>("phone"));
 
+        search = new SearchDebouncer<>(this::showMatches,
+                e -> showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR));
+        txtSearch.textProperty().addListener((obs, oldText, newText) -> startSearch(false));
+
         loadDepartments();
         loadDoctors();
     }
 
     @FXML
     private void handleSearch() {
-        try {
-            String query = txtSearch.getText();
-            
-            // Ensure data is loaded
-            if (allDoctors == null) {
-                allDoctors = doctorService.getAllDoctors();
-            }
-            
-            if (query == null || query.trim().isEmpty()) {
-                doctorTable.setItems(FXCollections.observableArrayList(allDoctors));
-                return;
-            }
-            
-            List<Doctor> filtered = SearchUtil.searchDoctors(allDoctors, query);
-            doctorTable.setItems(FXCollections.observableArrayList(filtered));
-        } catch (Exception e) {
-            showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR);
+        startSearch(true);
+    }
+
+    // Runs on every keystroke (debounced) and on Enter; the first lookup builds the index off the FX thread
+    private void startSearch(boolean now) {
+        String query = txtSearch.getText();
+        if (query == null || query.trim().isEmpty()) {
+            search.cancel();
+            loadDoctors();
+            return;
+        }
+
+        if (pageLoad != null) {
+            pageLoad.cancel();
+        }
+        lblPageInfo.setText("Searching...");
+        SearchDebouncer.Query<List<Doctor>> task = () -> doctorService.typeAheadDoctors(query, SEARCH_LIMIT);
+        if (now) {
+            search.submitNow(task);
+        } else {
+            search.submit(task);
         }
     }
 
+    private void showMatches(List<Doctor> matches) {
+        // Prefix index lookup; the result list is only as long as the match count
+        SortedList<Doctor> sorted = new SortedList<>(FXCollections.observableList(matches));
+        sorted.comparatorProperty().bind(doctorTable.comparatorProperty());
+        doctorTable.setItems(sorted);
+        btnPrevPage.setDisable(true);
+        btnNextPage.setDisable(true);
+        lblPageInfo.setText(matches.size() >= SEARCH_LIMIT
+            ? "Top " + SEARCH_LIMIT + " matches"
+            : matches.size() + " matches");
+    }
+
     @FXML
     private void handleClearSearch() {
-        txtSearch.clear();
-        loadDoctors();
+        search.cancel();
+        // Clearing a non-empty box already reloads through the text listener
+        if (txtSearch.getText() == null || txtSearch.getText().isEmpty()) {
+            loadFirstPage();
+        } else {
+            txtSearch.clear();
+        }
+    }
+
+    @FXML
+    private void handleNextPage() {
+        if (currentPage == null || !currentPage.hasMore()) {
+            return;
+        }
+        previousCursors.add(currentCursor);
+        loadPage(currentPage.getNextCursor());
+    }
+
+    @FXML
+    private void handlePrevPage() {
+        if (previousCursors.isEmpty()) {
+            return;
+        }
+        loadPage(previousCursors.remove(previousCursors.size() - 1));
     }
 
     @FXML
     private void handleAdd() {
-        try {
-            Doctor doctor = new Doctor(
-                txtFirstName.getText(),
-                txtLastName.getText(),
-                cbDepartment.getValue().getId(),
-                txtPhone.getText(),
-                txtEmail.getText(),
-                dpHireDate.getValue()
-            );
-
-            doctorService.addDoctor(doctor);
+        if (cbDepartment.getValue() == null) {
+            showAlert("Validation Error", "Please select a department", Alert.AlertType.ERROR);
+            return;
+        }
+        Doctor doctor = new Doctor(
+            txtFirstName.getText(),
+            txtLastName.getText(),
+            cbDepartment.getValue().getId(),
+            txtPhone.getText(),
+            txtEmail.getText(),
+            dpHireDate.getValue()
+        );
+
+        BackgroundTask.run(() -> doctorService.addDoctor(doctor), () -> {
             showAlert("Success", "Doctor added successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDoctors();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to add doctor: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to add doctor", e));
+    }
+
+    @FXML
+    private void handleImport() {
+        RosterImportService importService = RosterImportService.getInstance(HealthcareApp.getDataSource());
+        RosterImportDialog.show(doctorTable.getScene().getWindow(), "Import Doctors", importService::importDoctors, this::loadFirstPage);
     }
 
     @FXML
@@ -107,24 +169,23 @@ public class DoctorController {
             showAlert("Warning", "Please select a doctor to update", Alert.AlertType.WARNING);
             return;
         }
+        if (cbDepartment.getValue() == null) {
+            showAlert("Validation Error", "Please select a department", Alert.AlertType.ERROR);
+            return;
+        }
 
-        try {
-            selected.setFirstName(txtFirstName.getText());
-            selected.setLastName(txtLastName.getText());
-            selected.setDepartmentID(cbDepartment.getValue().getId());
-            selected.setPhone(txtPhone.getText());
-            selected.setEmail(txtEmail.getText());
-            selected.setHireDate(dpHireDate.getValue());
+        selected.setFirstName(txtFirstName.getText());
+        selected.setLastName(txtLastName.getText());
+        selected.setDepartmentID(cbDepartment.getValue().getId());
+        selected.setPhone(txtPhone.getText());
+        selected.setEmail(txtEmail.getText());
+        selected.setHireDate(dpHireDate.getValue());
 
-            doctorService.updateDoctor(selected);
+        BackgroundTask.run(() -> doctorService.updateDoctor(selected), () -> {
             showAlert("Success", "Doctor updated successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDoctors();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to update doctor: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to update doctor", e));
     }
 
     @FXML
@@ -135,14 +196,11 @@ public class DoctorController {
             return;
         }
 
-        try {
-            doctorService.deleteDoctor(selected.getDoctorID());
+        BackgroundTask.run(() -> doctorService.deleteDoctor(selected.getDoctorID()), () -> {
             showAlert("Success", "Doctor deleted successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadDoctors();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to delete doctor: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to delete doctor", e));
     }
 
     @FXML
@@ -165,25 +223,60 @@ public class DoctorController {
         }
     }
 
+    // Reloads the page currently on screen
     private void loadDoctors() {
-        try {
-            allDoctors = doctorService.getAllDoctors();
-            doctorTable.setItems(FXCollections.observableArrayList(allDoctors));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load doctors: " + e.getMessage(), Alert.AlertType.ERROR);
+        loadPage(currentCursor);
+    }
+
+    private void loadFirstPage() {
+        previousCursors.clear();
+        loadPage(null);
+    }
+
+    private void loadPage(Integer cursor) {
+        // A newer page or search supersedes whatever is still loading
+        search.cancel();
+        if (pageLoad != null) {
+            pageLoad.cancel();
         }
+        btnPrevPage.setDisable(true);
+        btnNextPage.setDisable(true);
+        lblPageInfo.setText("Loading...");
+
+        pageLoad = BackgroundTask.load(doctorTable,
+            () -> doctorService.getDoctorPage(cursor, PAGE_SIZE, SortOrder.ASC),
+            page -> {
+                currentPage = page;
+                currentCursor = cursor;
+                doctorTable.setItems(FXCollections.observableArrayList(page.getItems()));
+                updatePageControls();
+            },
+            e -> {
+                lblPageInfo.setText("Could not load doctors");
+                showAlert("Error", "Failed to load doctors: " + e.getMessage(), Alert.AlertType.ERROR);
+            });
+    }
+
+    private void updatePageControls() {
+        btnPrevPage.setDisable(previousCursors.isEmpty());
+        btnNextPage.setDisable(!currentPage.hasMore());
+        lblPageInfo.setText("Page " + (previousCursors.size() + 1) + " (" + currentPage.size() + " records)");
     }
 
     private void loadDepartments() {
-        try {
-            cbDepartment.setItems(FXCollections.observableArrayList(
-                departmentService.getAllDepartments().stream()
-                    .map(d -> new DepartmentItem(d.getDepartmentID(), d.getName()))
-                    .toList()
-            ));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load departments: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        String prompt = cbDepartment.getPromptText();
+        cbDepartment.setPromptText("Loading...");
+        BackgroundTask.run(() -> departmentService.getAllDepartments().stream()
+                .map(d -> new DepartmentItem(d.getDepartmentID(), d.getName()))
+                .toList(),
+            items -> {
+                cbDepartment.setItems(FXCollections.observableArrayList(items));
+                cbDepartment.setPromptText(prompt);
+            },
+            e -> {
+                cbDepartment.setPromptText(prompt);
+                showAlert("Error", "Failed to load departments: " + e.getMessage(), Alert.AlertType.ERROR);
+            });
     }
 
     private void clearForm() {
@@ -202,4 +295,12 @@ public class DoctorController {
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    private void showFailure(String action, Throwable e) {
+        if (e instanceof ValidationException) {
+            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
+        } else {
+            showAlert("Error", action + ": " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 }
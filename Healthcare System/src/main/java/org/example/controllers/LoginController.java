@@ -20,18 +20,29 @@ public class LoginController {
 
     @FXML
     public void initialize() {
-        userService = new UserService(HealthcareApp.getConnection());
+        userService = new UserService(HealthcareApp.getDataSource());
     }
 
     @FXML
     private void handleLogin() {
-        lblError.setText("");
-        
+        lblError.setText("Signing in...");
+        String username = txtUsername.getText();
+        String password = txtPassword.getText();
+
+        // The credential check runs in the background; the window switch happens back on the FX thread
+        BackgroundTask.run(() -> userService.authenticate(username, password), this::openMainWindow, e -> {
+            if (e instanceof ValidationException) {
+                lblError.setText(e.getMessage());
+            } else {
+                lblError.setText("Login failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void openMainWindow(User user) {
         try {
-            String username = txtUsername.getText();
-            String password = txtPassword.getText();
-            
-            User user = userService.authenticate(username, password);
+            lblError.setText("");
             SessionManager.setCurrentUser(user);
             
             // Load main application
@@ -43,8 +54,6 @@ public class LoginController {
             stage.setScene(scene);
             stage.setTitle("Healthcare Management System - " + user.getFirstName() + " " + user.getLastName() + " (" + user.getRole() + ")");
             
-        } catch (ValidationException e) {
-            lblError.setText(e.getMessage());
         } catch (Exception e) {
             lblError.setText("Login failed: " + e.getMessage());
             e.printStackTrace();
@@ -1,21 +1,28 @@
 package org.example.controllers;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
 import org.example.HealthcareApp;
+import org.example.dao.SortOrder;
+import org.example.models.Page;
 import org.example.models.Patient;
 import org.example.models.PatientNote;
-import org.example.models.MedicalLog;
+import org.example.models.TimelineEntry;
 import org.example.services.PatientService;
 import org.example.services.PatientNoteService;
-import org.example.services.MedicalLogService;
-import org.example.utils.SearchUtil;
+import org.example.services.PatientTimelineService;
+import org.example.services.RosterImportService;
+import org.example.utils.CacheStats;
 import org.example.utils.ValidationException;
 import org.example.utils.SessionManager;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,18 +43,33 @@ public class PatientController {
     @FXML private TextField txtPhone;
     @FXML private TextArea txtAddress;
     @FXML private TextField txtSearch;
+    @FXML private DatePicker dpSearchDob;
     @FXML private Label lblCacheStatus;
+    @FXML private Button btnPrevPage;
+    @FXML private Button btnNextPage;
+    @FXML private Label lblPageInfo;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 100;
+    private static final int NOTES_PAGE_SIZE = 20;
+    private static final int TIMELINE_PAGE_SIZE = 25;
 
     private PatientService patientService;
     private PatientNoteService noteService;
-    private MedicalLogService logService;
-    private List<Patient> allPatients;
+    private PatientTimelineService timelineService;
+    private Page<Patient> currentPage;
+    private Integer currentCursor;
+    private final List<Integer> previousCursors = new ArrayList<>();
+    private SearchDebouncer<Matches> search;
+    private Task<Page<Patient>> pageLoad;
+
+    private record Matches(List<Patient> patients, String label) {}
 
     @FXML
     public void initialize() {
-        patientService = PatientService.getInstance(HealthcareApp.getConnection());
+        patientService = PatientService.getInstance(HealthcareApp.getDataSource());
         noteService = PatientNoteService.getInstance();
-        logService = MedicalLogService.getInstance();
+        timelineService = PatientTimelineService.getInstance(HealthcareApp.getDataSource());
 
         // Setup table columns
         colId.setCellValueFactory(new PropertyValueFactory<>("patientID"));
@@ -59,6 +81,10 @@ public class PatientController {
         // Setup gender combo box
         cbGender.setItems(FXCollections.observableArrayList("Male", "Female", "Other"));
 
+        search = new SearchDebouncer<>(this::showMatches,
+                e -> showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR));
+        txtSearch.textProperty().addListener((obs, oldText, newText) -> startSearch(false));
+
         loadPatients();
         updateCacheStatus();
     }
@@ -66,66 +92,114 @@ public class PatientController {
     @FXML
     //search patients by name, email, phone
     private void handleSearch() {
-        try {
-            String query = txtSearch.getText();
-            
-            // Ensure data is loaded
-            if (allPatients == null) {
-                allPatients = patientService.getAllPatients();
-            }
-            
-            if (query == null || query.trim().isEmpty()) {
-                patientTable.setItems(FXCollections.observableArrayList(allPatients));
-                return;
+        startSearch(true);
+    }
+
+    @FXML
+    //typo-tolerant name lookup, narrowed by date of birth when one is picked
+    private void handleFuzzySearch() {
+        String query = txtSearch.getText();
+        LocalDate dob = dpSearchDob.getValue();
+        if ((query == null || query.trim().isEmpty()) && dob == null) {
+            showAlert("Search", "Enter a name or pick a date of birth", Alert.AlertType.WARNING);
+            return;
+        }
+        lblPageInfo.setText("Searching...");
+        search.submitNow(() -> new Matches(patientService.findPatientsByName(query, dob, SEARCH_LIMIT), "similar names"));
+    }
+
+    // Runs on every keystroke (debounced) and on Enter; the query itself never runs on the FX thread
+    private void startSearch(boolean now) {
+        String query = txtSearch.getText();
+        LocalDate dob = dpSearchDob.getValue();
+        if (query == null || query.trim().isEmpty()) {
+            search.cancel();
+            loadPatients();
+            return;
+        }
+
+        if (pageLoad != null) {
+            pageLoad.cancel();
+        }
+        lblPageInfo.setText("Searching...");
+        SearchDebouncer.Query<Matches> task = () -> {
+            List<Patient> matches = patientService.searchPatients(query, SEARCH_LIMIT);
+            if (matches.isEmpty()) {
+                // Nothing spelled that way; try names that sound alike or are a typo away
+                return new Matches(patientService.findPatientsByName(query, dob, SEARCH_LIMIT), "similar names");
             }
-            
-            List<Patient> filtered = SearchUtil.searchPatients(allPatients, query);
-            patientTable.setItems(FXCollections.observableArrayList(filtered));
-        } catch (Exception e) {
-            showAlert("Error", "Search failed: " + e.getMessage(), Alert.AlertType.ERROR);
+            return new Matches(matches, "matches");
+        };
+        if (now) {
+            search.submitNow(task);
+        } else {
+            search.submit(task);
         }
     }
 
+    private void showMatches(Matches result) {
+        List<Patient> matches = result.patients();
+        String label = result.label();
+        patientTable.setItems(FXCollections.observableArrayList(matches));
+        btnPrevPage.setDisable(true);
+        btnNextPage.setDisable(true);
+        lblPageInfo.setText(matches.size() >= SEARCH_LIMIT
+            ? "Top " + SEARCH_LIMIT + " " + label
+            : matches.size() + " " + label);
+    }
+
     @FXML
     private void handleClearSearch() {
-        txtSearch.clear();
-        loadPatients();
+        search.cancel();
+        dpSearchDob.setValue(null);
+        // Clearing a non-empty box already reloads through the text listener
+        if (txtSearch.getText() == null || txtSearch.getText().isEmpty()) {
+            loadFirstPage();
+        } else {
+            txtSearch.clear();
+        }
+    }
+
+    @FXML
+    private void handleNextPage() {
+        if (currentPage == null || !currentPage.hasMore()) {
+            return;
+        }
+        previousCursors.add(currentCursor);
+        loadPage(currentPage.getNextCursor());
+    }
+
+    @FXML
+    private void handlePrevPage() {
+        if (previousCursors.isEmpty()) {
+            return;
+        }
+        loadPage(previousCursors.remove(previousCursors.size() - 1));
     }
 
     @FXML
     private void handleAdd() {
-        try {
-            Patient patient = new Patient(
-                txtFirstName.getText(),
-                txtLastName.getText(),
-                dpDOB.getValue(),
-                cbGender.getValue(),
-                txtEmail.getText(),
-                txtPhone.getText(),
-                txtAddress.getText()
-            );
-
-            patientService.registerPatient(patient);
-            
-            // Log to MongoDB
-            String username = SessionManager.getCurrentUser() != null ? 
-                SessionManager.getCurrentUser().getUsername() : "System";
-            MedicalLog log = new MedicalLog(
-                patient.getPatientID(),
-                "Patient Registered",
-                "New patient: " + patient.getFirstName() + " " + patient.getLastName(),
-                username
-            );
-            logService.addLog(log);
-            
+        Patient patient = new Patient(
+            txtFirstName.getText(),
+            txtLastName.getText(),
+            dpDOB.getValue(),
+            cbGender.getValue(),
+            txtEmail.getText(),
+            txtPhone.getText(),
+            txtAddress.getText()
+        );
+
+        BackgroundTask.run(() -> patientService.registerPatient(patient), () -> {
             showAlert("Success", "Patient registered successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadPatients();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to register patient: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to register patient", e));
+    }
+
+    @FXML
+    private void handleImport() {
+        RosterImportService importService = RosterImportService.getInstance(HealthcareApp.getDataSource());
+        RosterImportDialog.show(patientTable.getScene().getWindow(), "Import Patients", importService::importPatients, this::loadFirstPage);
     }
 
     @FXML
@@ -136,36 +210,19 @@ public class PatientController {
             return;
         }
 
-        try {
-            selected.setFirstName(txtFirstName.getText());
-            selected.setLastName(txtLastName.getText());
-            selected.setDob(dpDOB.getValue());
-            selected.setGender(cbGender.getValue());
-            selected.setEmail(txtEmail.getText());
-            selected.setPhone(txtPhone.getText());
-            selected.setAddress(txtAddress.getText());
-
-            patientService.updatePatient(selected);
-            
-            // Log to MongoDB
-            String username = SessionManager.getCurrentUser() != null ? 
-                SessionManager.getCurrentUser().getUsername() : "System";
-            MedicalLog log = new MedicalLog(
-                selected.getPatientID(),
-                "Patient Updated",
-                "Updated patient information",
-                username
-            );
-            logService.addLog(log);
-            
+        selected.setFirstName(txtFirstName.getText());
+        selected.setLastName(txtLastName.getText());
+        selected.setDob(dpDOB.getValue());
+        selected.setGender(cbGender.getValue());
+        selected.setEmail(txtEmail.getText());
+        selected.setPhone(txtPhone.getText());
+        selected.setAddress(txtAddress.getText());
+
+        BackgroundTask.run(() -> patientService.updatePatient(selected), () -> {
             showAlert("Success", "Patient updated successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadPatients();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to update patient: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to update patient", e));
     }
 
     @FXML
@@ -176,26 +233,11 @@ public class PatientController {
             return;
         }
 
-        try {
-            patientService.deletePatient(selected.getPatientID());
-            
-            // Log to MongoDB
-            String username = SessionManager.getCurrentUser() != null ? 
-                SessionManager.getCurrentUser().getUsername() : "System";
-            MedicalLog log = new MedicalLog(
-                selected.getPatientID(),
-                "Patient Deleted",
-                "Deleted patient: " + selected.getFirstName() + " " + selected.getLastName(),
-                username
-            );
-            logService.addLog(log);
-            
+        BackgroundTask.run(() -> patientService.deletePatient(selected.getPatientID()), () -> {
             showAlert("Success", "Patient deleted successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadPatients();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to delete patient: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to delete patient", e));
     }
 
     @FXML
@@ -212,19 +254,53 @@ public class PatientController {
         }
     }
 
+    // Reloads the page currently on screen
     private void loadPatients() {
-        try {
-            allPatients = patientService.getAllPatients();
-            patientTable.setItems(FXCollections.observableArrayList(allPatients));
-            updateCacheStatus();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load patients: " + e.getMessage(), Alert.AlertType.ERROR);
+        loadPage(currentCursor);
+    }
+
+    private void loadFirstPage() {
+        previousCursors.clear();
+        loadPage(null);
+    }
+
+    private void loadPage(Integer cursor) {
+        // A newer page or search supersedes whatever is still loading
+        search.cancel();
+        if (pageLoad != null) {
+            pageLoad.cancel();
         }
+        btnPrevPage.setDisable(true);
+        btnNextPage.setDisable(true);
+        lblPageInfo.setText("Loading...");
+
+        pageLoad = BackgroundTask.load(patientTable,
+            () -> patientService.getPatientPage(cursor, PAGE_SIZE, SortOrder.ASC),
+            page -> {
+                currentPage = page;
+                currentCursor = cursor;
+                patientTable.setItems(FXCollections.observableArrayList(page.getItems()));
+                updatePageControls();
+                updateCacheStatus();
+            },
+            e -> {
+                lblPageInfo.setText("Could not load patients");
+                showAlert("Error", "Failed to load patients: " + e.getMessage(), Alert.AlertType.ERROR);
+            });
+    }
+
+    private void updatePageControls() {
+        btnPrevPage.setDisable(previousCursors.isEmpty());
+        btnNextPage.setDisable(!currentPage.hasMore());
+        lblPageInfo.setText("Page " + (previousCursors.size() + 1) + " (" + currentPage.size() + " records)");
     }
 
     private void updateCacheStatus() {
         try {
-            lblCacheStatus.setText("Cache: " + patientService.getCacheStatus());
+            CacheStats stats = patientService.getCacheStats();
+            lblCacheStatus.setText(String.format("Cache: %d items | Hit rate %.0f%% | Load p99 %.1fms | Evicted %d",
+                    stats.size(), stats.hitRate() * 100, stats.loadP99Millis(), stats.evictions() + stats.expirations()));
+            lblCacheStatus.setTooltip(new Tooltip(stats.toString()));
         } catch (Exception e) {
             lblCacheStatus.setText("Cache: Error");
             }
@@ -286,10 +362,9 @@ public class PatientController {
         });
 
         Optional<PatientNote> result = dialog.showAndWait();
-        result.ifPresent(note -> {
-            noteService.addNote(note);
-            showAlert("Success", "Note added successfully!", Alert.AlertType.INFORMATION);
-        });
+        result.ifPresent(note -> BackgroundTask.run(() -> noteService.addNote(note),
+            () -> showAlert("Success", "Note added successfully!", Alert.AlertType.INFORMATION),
+            e -> showFailure("Failed to add note", e)));
     }
 
     @FXML
@@ -300,37 +375,122 @@ public class PatientController {
             return;
         }
 
-        List<PatientNote> notes = noteService.getNotesByPatient(selected.getPatientID());
-        
-        StringBuilder notesText = new StringBuilder();
-        if (notes.isEmpty()) {
-            notesText.append("No notes found for this patient.");
-        } else {
-            for (PatientNote note : notes) {
-                notesText.append("Type: ").append(note.getType()).append("\n");
-                notesText.append("Date: ").append(note.getTimestamp()).append("\n");
-                notesText.append("Note: ").append(note.getNote()).append("\n");
-                notesText.append("---\n\n");
-            }
-        }
+        TextArea textArea = new TextArea("Loading...");
+        textArea.setEditable(false);
+        textArea.setWrapText(true);
+        textArea.setPrefRowCount(15);
+        Button olderButton = new Button("Load Older Notes");
+        olderButton.setDisable(true);
 
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Patient Notes");
         alert.setHeaderText("Notes for: " + selected.getFirstName() + " " + selected.getLastName());
-        
-        TextArea textArea = new TextArea(notesText.toString());
+        alert.getDialogPane().setContent(new VBox(10, textArea, olderButton));
+
+        loadNotesPage(selected.getPatientID(), null, textArea, olderButton);
+        alert.showAndWait();
+    }
+
+    // Newest notes first, a page at a time; the button fetches the page after the last one shown
+    private void loadNotesPage(Integer patientID, String pageToken, TextArea textArea, Button olderButton) {
+        olderButton.setDisable(true);
+        BackgroundTask.run(() -> noteService.getNotePage(patientID, pageToken, NOTES_PAGE_SIZE, "type", "note"),
+            page -> {
+                if (pageToken == null) {
+                    textArea.setText(page.isEmpty() ? "No notes found for this patient." : "");
+                }
+                StringBuilder notesText = new StringBuilder();
+                for (PatientNote note : page.getItems()) {
+                    notesText.append("Type: ").append(note.getType()).append("\n");
+                    notesText.append("Date: ").append(note.getTimestamp()).append("\n");
+                    notesText.append("Note: ").append(note.getNote()).append("\n");
+                    notesText.append("---\n\n");
+                }
+                textArea.appendText(notesText.toString());
+                olderButton.setOnAction(event -> loadNotesPage(patientID, page.getNextToken(), textArea, olderButton));
+                olderButton.setDisable(!page.hasMore());
+            },
+            e -> {
+                if (pageToken == null) {
+                    textArea.setText("Failed to load notes.");
+                } else {
+                    // The button still points at this page, so it doubles as a retry
+                    olderButton.setDisable(false);
+                }
+                showFailure("Failed to load notes", e);
+            });
+    }
+
+    @FXML
+    private void handleViewTimeline() {
+        Patient selected = patientTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("Warning", "Please select a patient to view the timeline", Alert.AlertType.WARNING);
+            return;
+        }
+
+        TextArea textArea = new TextArea("Loading...");
         textArea.setEditable(false);
         textArea.setWrapText(true);
-        textArea.setPrefRowCount(15);
-        
-        alert.getDialogPane().setContent(textArea);
+        textArea.setPrefRowCount(20);
+        Button olderButton = new Button("Load Older Entries");
+        olderButton.setDisable(true);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Patient Timeline");
+        alert.setHeaderText("Timeline for: " + selected.getFirstName() + " " + selected.getLastName());
+        alert.getDialogPane().setContent(new VBox(10, textArea, olderButton));
+
+        loadTimelinePage(selected.getPatientID(), null, textArea, olderButton);
         alert.showAndWait();
     }
 
+    // Appointments, prescriptions, feedback, notes and audit entries merged newest first, a page at a time
+    private void loadTimelinePage(Integer patientID, String pageToken, TextArea textArea, Button olderButton) {
+        olderButton.setDisable(true);
+        BackgroundTask.run(() -> timelineService.getTimelinePage(patientID, pageToken, TIMELINE_PAGE_SIZE),
+            page -> {
+                if (pageToken == null) {
+                    textArea.setText(page.isEmpty() ? "No history found for this patient." : "");
+                }
+                StringBuilder timelineText = new StringBuilder();
+                if (!page.isComplete()) {
+                    timelineText.append("⚠ Could not load: ").append(page.getUnavailableSources())
+                            .append(". The timeline below is incomplete.\n\n");
+                }
+                for (TimelineEntry entry : page.getItems()) {
+                    timelineText.append(entry.getTimestamp()).append("  ").append(entry.getTitle()).append("\n");
+                    if (entry.getDetails() != null && !entry.getDetails().isBlank()) {
+                        timelineText.append(entry.getDetails()).append("\n");
+                    }
+                    timelineText.append("---\n\n");
+                }
+                textArea.appendText(timelineText.toString());
+                olderButton.setOnAction(event -> loadTimelinePage(patientID, page.getNextToken(), textArea, olderButton));
+                olderButton.setDisable(!page.hasMore());
+            },
+            e -> {
+                if (pageToken == null) {
+                    textArea.setText("Failed to load timeline.");
+                } else {
+                    olderButton.setDisable(false);
+                }
+                showFailure("Failed to load timeline", e);
+            });
+    }
+
     private void showAlert(String title, String content, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    private void showFailure(String action, Throwable e) {
+        if (e instanceof ValidationException) {
+            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
+        } else {
+            showAlert("Error", action + ": " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 }
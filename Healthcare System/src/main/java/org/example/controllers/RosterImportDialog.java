@@ -0,0 +1,90 @@
+package org.example.controllers;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.example.models.ImportResult;
+import org.example.services.AsyncServices;
+import org.example.services.ImportProgressListener;
+import org.example.services.RosterImportService;
+
+import java.io.File;
+import java.nio.file.Path;
+
+public class RosterImportDialog {
+
+    public interface ImportJob {
+        ImportResult run(Path csvFile, Path rejectFile, ImportProgressListener listener) throws Exception;
+    }
+
+    // Asks for a CSV file, runs the import on a background thread and shows live progress
+    public static void show(Window owner, String title, ImportJob job, Runnable onComplete) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+
+        Path csvFile = file.toPath();
+        Path rejectFile = RosterImportService.rejectFileFor(csvFile);
+
+        Task<ImportResult> task = new Task<>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                return job.run(csvFile, rejectFile, (stage, rowsRead, rowsRejected, fraction) -> {
+                    updateProgress(fraction, 1.0);
+                    updateMessage(stage + " - " + rowsRead + " read, " + rowsRejected + " rejected");
+                });
+            }
+        };
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(420);
+        progressBar.progressProperty().bind(task.progressProperty());
+
+        Label lblStatus = new Label();
+        lblStatus.textProperty().bind(task.messageProperty());
+
+        VBox content = new VBox(12, new Label("Importing " + file.getName()), progressBar, lblStatus);
+        content.setPadding(new Insets(20));
+
+        Stage progressStage = new Stage();
+        progressStage.initOwner(owner);
+        progressStage.initModality(Modality.WINDOW_MODAL);
+        progressStage.setTitle(title);
+        progressStage.setScene(new Scene(content));
+        progressStage.setOnCloseRequest(event -> event.consume());
+
+        task.setOnSucceeded(event -> {
+            progressStage.close();
+            ImportResult result = task.getValue();
+            String rejectNote = result.getRowsRejected() > 0 ? "\nRejected rows written to: " + rejectFile : "";
+            showAlert("Import Complete", result + rejectNote, Alert.AlertType.INFORMATION);
+            onComplete.run();
+        });
+        task.setOnFailed(event -> {
+            progressStage.close();
+            showAlert("Import Failed", task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+
+        AsyncServices.executor().execute(task);
+        progressStage.show();
+    }
+
+    private static void showAlert(String title, String content, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+}
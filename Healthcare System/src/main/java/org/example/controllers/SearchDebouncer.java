@@ -0,0 +1,89 @@
+package org.example.controllers;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs search queries off the JavaFX thread. Keystrokes are debounced, a newer query cancels the one still
+// waiting or running, and only the latest query's result is handed back on the FX thread.
+class SearchDebouncer<R> {
+    static final long DEBOUNCE_MS = 250;
+
+    // Shared by every screen; daemon threads so an in-flight query never keeps the app alive
+    private static final ScheduledExecutorService EXECUTOR = createExecutor();
+
+    @FunctionalInterface
+    interface Query<R> {
+        R run() throws Exception;
+    }
+
+    private final Consumer<R> onResult;
+    private final Consumer<Exception> onError;
+    // Only touched on the FX thread, so the latest-query check needs no locking
+    private long generation;
+    private Future<?> pending;
+
+    SearchDebouncer(Consumer<R> onResult, Consumer<Exception> onError) {
+        this.onResult = onResult;
+        this.onError = onError;
+    }
+
+    // For keystrokes: waits for a pause in typing before running
+    void submit(Query<R> query) {
+        schedule(query, DEBOUNCE_MS);
+    }
+
+    // For Enter / the Search button: runs straight away
+    void submitNow(Query<R> query) {
+        schedule(query, 0);
+    }
+
+    // Drops whatever is queued or running, e.g. when the search box is cleared
+    void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    private void schedule(Query<R> query, long delayMs) {
+        cancel();
+        long ticket = generation;
+        pending = EXECUTOR.schedule(() -> {
+            try {
+                R result = query.run();
+                Platform.runLater(() -> {
+                    if (ticket == generation) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    Platform.runLater(() -> {
+                        if (ticket == generation) {
+                            onError.accept(e);
+                        }
+                    });
+                }
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled debounce timers are dropped at once instead of waiting out their delay in the queue
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -37,7 +37,7 @@ public class UserController {
             return;
         }
 
-        userService = new UserService(HealthcareApp.getConnection());
+        userService = new UserService(HealthcareApp.getDataSource());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("userID"));
         colUsername.setCellValueFactory(new PropertyValueFactory<>("username"));
@@ -54,26 +54,21 @@ public class UserController {
 
     @FXML
     private void handleAdd() {
-        try {
-            User user = new User(
-                txtUsername.getText(),
-                txtPassword.getText(),
-                cbRole.getValue(),
-                txtFirstName.getText(),
-                txtLastName.getText(),
-                txtEmail.getText()
-            );
-            user.setIsActive(chkActive.isSelected());
-
-            userService.createUser(user);
+        User user = new User(
+            txtUsername.getText(),
+            txtPassword.getText(),
+            cbRole.getValue(),
+            txtFirstName.getText(),
+            txtLastName.getText(),
+            txtEmail.getText()
+        );
+        user.setIsActive(chkActive.isSelected());
+
+        BackgroundTask.run(() -> userService.createUser(user), () -> {
             showAlert("Success", "User created successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadUsers();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to create user: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to create user", e));
     }
 
     @FXML
@@ -84,26 +79,21 @@ public class UserController {
             return;
         }
 
-        try {
-            selected.setUsername(txtUsername.getText());
-            if (!txtPassword.getText().isEmpty()) {
-                selected.setPassword(txtPassword.getText());
-            }
-            selected.setFirstName(txtFirstName.getText());
-            selected.setLastName(txtLastName.getText());
-            selected.setRole(cbRole.getValue());
-            selected.setEmail(txtEmail.getText());
-            selected.setIsActive(chkActive.isSelected());
-
-            userService.updateUser(selected);
+        selected.setUsername(txtUsername.getText());
+        if (!txtPassword.getText().isEmpty()) {
+            selected.setPassword(txtPassword.getText());
+        }
+        selected.setFirstName(txtFirstName.getText());
+        selected.setLastName(txtLastName.getText());
+        selected.setRole(cbRole.getValue());
+        selected.setEmail(txtEmail.getText());
+        selected.setIsActive(chkActive.isSelected());
+
+        BackgroundTask.run(() -> userService.updateUser(selected), () -> {
             showAlert("Success", "User updated successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadUsers();
-        } catch (ValidationException e) {
-            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
-        } catch (Exception e) {
-            showAlert("Error", "Failed to update user: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to update user", e));
     }
 
     @FXML
@@ -120,14 +110,11 @@ public class UserController {
             return;
         }
 
-        try {
-            userService.deleteUser(selected.getUserID());
+        BackgroundTask.run(() -> userService.deleteUser(selected.getUserID()), () -> {
             showAlert("Success", "User deleted successfully!", Alert.AlertType.INFORMATION);
             clearForm();
             loadUsers();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to delete user: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }, e -> showFailure("Failed to delete user", e));
     }
 
     @FXML
@@ -145,11 +132,9 @@ public class UserController {
     }
 
     private void loadUsers() {
-        try {
-            userTable.setItems(FXCollections.observableArrayList(userService.getAllUsers()));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load users: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        BackgroundTask.load(userTable, userService::getAllUsers,
+            users -> userTable.setItems(FXCollections.observableArrayList(users)),
+            e -> showAlert("Error", "Failed to load users: " + e.getMessage(), Alert.AlertType.ERROR));
     }
 
     private void clearForm() {
@@ -169,4 +154,12 @@ public class UserController {
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    private void showFailure(String action, Throwable e) {
+        if (e instanceof ValidationException) {
+            showAlert("Validation Error", e.getMessage(), Alert.AlertType.ERROR);
+        } else {
+            showAlert("Error", action + ": " + e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 }
@@ -1,37 +1,99 @@
 package org.example.dao;
 
 import org.example.models.Appointment;
+import org.example.models.AppointmentFilter;
+import org.example.models.AppointmentView;
+import org.example.models.MedicalLog;
+import org.example.models.Page;
+import javax.sql.DataSource;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 public class AppointmentDAO {
-    private Connection conn;
+    private static final String INSERT_SQL = "INSERT INTO Appointments (PatientID, DoctorID, AppointmentDate, AppointmentTime, Status) VALUES (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
 
-    public AppointmentDAO(Connection conn) {
-        this.conn = conn;
+    private static final String VIEW_SQL = """
+            SELECT a.AppointmentID, a.PatientID, p.FirstName || ' ' || p.LastName AS PatientName,
+                   a.DoctorID, 'Dr. ' || d.FirstName || ' ' || d.LastName AS DoctorName,
+                   a.AppointmentDate, a.AppointmentTime, a.Status
+            FROM Appointments a
+            JOIN Patient p ON p.PatientID = a.PatientID
+            JOIN Doctors d ON d.DoctorID = a.DoctorID
+            """;
+
+    private final DataSource dataSource;
+
+    public AppointmentDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
-    public void create(Appointment appointment) throws SQLException {
-        String sql = "INSERT INTO Appointments (PatientID, DoctorID, AppointmentDate, AppointmentTime, Status) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, appointment.getPatientID());
-            stmt.setInt(2, appointment.getDoctorID());
-            stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
-            stmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
-            stmt.setString(5, appointment.getStatus());
-            stmt.executeUpdate();
-            
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                appointment.setAppointmentID(rs.getInt(1));
+    // The audit entry is written in the same transaction
+    public void create(Appointment appointment, MedicalLog audit) throws SQLException {
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, appointment);
+                stmt.executeUpdate();
+
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    appointment.setAppointmentID(rs.getInt(1));
+                }
+            }
+            AuditOutboxDAO.insert(conn, audit);
+            return null;
+        });
+    }
+
+    // Inserts all rows with JDBC batching in one transaction; returns generated IDs in input order.
+    // audit is called once the row has its ID, and its entry is written in the same transaction.
+    public List<Integer> createBatch(List<Appointment> appointments, Function<Appointment, MedicalLog> audit) throws SQLException {
+        List<Integer> ids = new ArrayList<>(appointments.size());
+        if (appointments.isEmpty()) {
+            return ids;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < appointments.size(); from += BATCH_SIZE) {
+                    List<Appointment> chunk = appointments.subList(from, Math.min(from + BATCH_SIZE, appointments.size()));
+                    for (Appointment appointment : chunk) {
+                        bindInsert(stmt, appointment);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        int index = 0;
+                        while (rs.next()) {
+                            int id = rs.getInt(1);
+                            chunk.get(index++).setAppointmentID(id);
+                            ids.add(id);
+                        }
+                    }
+                    List<MedicalLog> entries = new ArrayList<>(chunk.size());
+                    for (Appointment item : chunk) {
+                        entries.add(audit.apply(item));
+                    }
+                    AuditOutboxDAO.insertAll(conn, entries);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
+        return ids;
     }
 
     public Appointment findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Appointments WHERE AppointmentID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -44,7 +106,8 @@ public class AppointmentDAO {
     public List<Appointment> findAll() throws SQLException {
         List<Appointment> appointments = new ArrayList<>();
         String sql = "SELECT * FROM Appointments";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 appointments.add(mapResultSet(rs));
             }
@@ -52,25 +115,123 @@ public class AppointmentDAO {
         return appointments;
     }
 
-    public void update(Appointment appointment) throws SQLException {
-        String sql = "UPDATE Appointments SET PatientID=?, DoctorID=?, AppointmentDate=?, AppointmentTime=?, Status=?, UpdatedAt=CURRENT_TIMESTAMP WHERE AppointmentID=?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, appointment.getPatientID());
-            stmt.setInt(2, appointment.getDoctorID());
-            stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
-            stmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
-            stmt.setString(5, appointment.getStatus());
-            stmt.setInt(6, appointment.getAppointmentID());
-            stmt.executeUpdate();
+    // Every view row for one day, ordered by AppointmentID so it can be paged in memory
+    public List<AppointmentView> findViewsByDate(LocalDate day) throws SQLException {
+        String sql = VIEW_SQL + "WHERE a.AppointmentDate = ? ORDER BY a.AppointmentID";
+        List<AppointmentView> views = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(day));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    views.add(mapView(rs));
+                }
+            }
         }
+        return views;
     }
 
-    public void delete(Integer id) throws SQLException {
-        String sql = "DELETE FROM Appointments WHERE AppointmentID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+    public Page<Appointment> findPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        int pageSize = Page.clampLimit(limit);
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT * FROM Appointments"
+                + (afterId != null ? " WHERE AppointmentID " + sort.keysetOperator() + " ?" : "")
+                + " ORDER BY AppointmentID " + sort.name() + " LIMIT ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapResultSet(rs));
+                }
+            }
+        }
+        return Page.of(appointments, pageSize, Appointment::getAppointmentID);
+    }
+
+    // One indexed JOIN returns display-ready rows, so callers need no patient/doctor lookups
+    public Page<AppointmentView> findViews(AppointmentFilter filter, PageRequest page) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (page.getAfterId() != null) {
+            conditions.add("a.AppointmentID " + page.getSort().keysetOperator() + " ?");
+            params.add(page.getAfterId());
+        }
+        if (filter.getFromDate() != null) {
+            conditions.add("a.AppointmentDate >= ?");
+            params.add(Date.valueOf(filter.getFromDate()));
         }
+        if (filter.getToDate() != null) {
+            conditions.add("a.AppointmentDate <= ?");
+            params.add(Date.valueOf(filter.getToDate()));
+        }
+        if (filter.getStatus() != null) {
+            conditions.add("a.Status = ?");
+            params.add(filter.getStatus());
+        }
+
+        String sql = VIEW_SQL
+                + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY a.AppointmentID " + page.getSort().name() + " LIMIT ?";
+        params.add(page.getLimit() + 1);
+
+        List<AppointmentView> views = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    views.add(mapView(rs));
+                }
+            }
+        }
+        return Page.of(views, page.getLimit(), AppointmentView::getAppointmentID);
+    }
+
+    // The audit entry is only written when the row was there to update
+    public void update(Appointment appointment, MedicalLog audit) throws SQLException {
+        String sql = "UPDATE Appointments SET PatientID=?, DoctorID=?, AppointmentDate=?, AppointmentTime=?, Status=?, UpdatedAt=CURRENT_TIMESTAMP WHERE AppointmentID=?";
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, appointment.getPatientID());
+                stmt.setInt(2, appointment.getDoctorID());
+                stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
+                stmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
+                stmt.setString(5, appointment.getStatus());
+                stmt.setInt(6, appointment.getAppointmentID());
+                if (stmt.executeUpdate() > 0) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+            }
+            return null;
+        });
+    }
+
+    public void delete(Integer id, MedicalLog audit) throws SQLException {
+        String sql = "DELETE FROM Appointments WHERE AppointmentID = ?";
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                if (stmt.executeUpdate() > 0) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void bindInsert(PreparedStatement stmt, Appointment appointment) throws SQLException {
+        stmt.setInt(1, appointment.getPatientID());
+        stmt.setInt(2, appointment.getDoctorID());
+        stmt.setDate(3, Date.valueOf(appointment.getAppointmentDate()));
+        stmt.setTime(4, Time.valueOf(appointment.getAppointmentTime()));
+        stmt.setString(5, appointment.getStatus());
     }
 
     private Appointment mapResultSet(ResultSet rs) throws SQLException {
@@ -85,4 +246,16 @@ public class AppointmentDAO {
         appointment.setUpdatedAt(rs.getTimestamp("UpdatedAt").toLocalDateTime());
         return appointment;
     }
+
+    private AppointmentView mapView(ResultSet rs) throws SQLException {
+        return new AppointmentView(
+                rs.getInt("AppointmentID"),
+                rs.getInt("PatientID"),
+                rs.getString("PatientName"),
+                rs.getInt("DoctorID"),
+                rs.getString("DoctorName"),
+                rs.getDate("AppointmentDate").toLocalDate(),
+                rs.getTime("AppointmentTime").toLocalTime(),
+                rs.getString("Status"));
+    }
 }
@@ -0,0 +1,112 @@
+package org.example.dao;
+
+import org.example.models.MedicalLog;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Audit entries waiting to be copied to MongoDB (medical_logs). A row is inserted on the connection of the
+// change it describes, inside that change's transaction, and deleted once MongoDB has the entry.
+public class AuditOutboxDAO {
+    private static final String INSERT_SQL = "INSERT INTO AuditOutbox (LogID, PatientID, Action, Details, PerformedBy, CreatedAt) VALUES (?, ?, ?, ?, ?, ?)";
+    // SKIP LOCKED lets several clients relay at the same time without claiming the same rows
+    private static final String CLAIM_SQL = "SELECT * FROM AuditOutbox ORDER BY OutboxID LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String DELETE_SQL = "DELETE FROM AuditOutbox WHERE OutboxID = ANY(?)";
+
+    @FunctionalInterface
+    public interface Delivery {
+        void deliver(List<MedicalLog> logs) throws Exception;
+    }
+
+    private final DataSource dataSource;
+
+    public AuditOutboxDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Joins the caller's transaction; a null entry writes nothing
+    static void insert(Connection conn, MedicalLog log) throws SQLException {
+        if (log == null) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            bindInsert(stmt, log);
+            stmt.executeUpdate();
+        }
+    }
+
+    // The same for the entries of a bulk write, sent as one JDBC batch; null entries are skipped
+    static void insertAll(Connection conn, List<MedicalLog> logs) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            int batched = 0;
+            for (MedicalLog log : logs) {
+                if (log == null) {
+                    continue;
+                }
+                bindInsert(stmt, log);
+                stmt.addBatch();
+                batched++;
+            }
+            if (batched > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    // Claims up to limit of the oldest rows, hands them to delivery and deletes them, all in one transaction.
+    // When delivery throws, the rows are released for the next attempt. Returns how many rows were relayed.
+    public int relay(int limit, Delivery delivery) throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>();
+                List<MedicalLog> logs = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(CLAIM_SQL)) {
+                    stmt.setInt(1, limit);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong("OutboxID"));
+                            logs.add(mapResultSet(rs));
+                        }
+                    }
+                }
+                if (!logs.isEmpty()) {
+                    delivery.deliver(logs);
+                    try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+                        stmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return logs.size();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, MedicalLog log) throws SQLException {
+        stmt.setString(1, log.getId());
+        stmt.setObject(2, log.getPatientID(), Types.INTEGER);
+        stmt.setString(3, log.getAction());
+        stmt.setString(4, log.getDetails());
+        stmt.setString(5, log.getPerformedBy());
+        stmt.setTimestamp(6, Timestamp.valueOf(log.getTimestamp()));
+    }
+
+    private MedicalLog mapResultSet(ResultSet rs) throws SQLException {
+        MedicalLog log = new MedicalLog();
+        log.setId(rs.getString("LogID"));
+        log.setPatientID((Integer) rs.getObject("PatientID"));
+        log.setAction(rs.getString("Action"));
+        log.setDetails(rs.getString("Details"));
+        log.setPerformedBy(rs.getString("PerformedBy"));
+        log.setTimestamp(rs.getTimestamp("CreatedAt").toLocalDateTime());
+        return log;
+    }
+}
@@ -1,20 +1,23 @@
 package org.example.dao;
 
+import org.example.models.Page;
 import org.example.models.Department;
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class DepartmentDAO {
-    private Connection conn;
+    private final DataSource dataSource;
 
-    public DepartmentDAO(Connection conn) {
-        this.conn = conn;
+    public DepartmentDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     public void create(Department department) throws SQLException {
         String sql = "INSERT INTO Departments (Name, Description) VALUES (?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, department.getName());
             stmt.setString(2, department.getDescription());
             stmt.executeUpdate();
@@ -28,7 +31,8 @@ public class DepartmentDAO {
 
     public Department findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Departments WHERE DepartmentID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -40,8 +44,9 @@ public class DepartmentDAO {
 
     public List<Department> findAll() throws SQLException {
         List<Department> departments = new ArrayList<>();
-        String sql = "SELECT * FROM Departments";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "SELECT * FROM Departments ORDER BY DepartmentID";
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 departments.add(mapResultSet(rs));
             }
@@ -49,19 +54,44 @@ public class DepartmentDAO {
         return departments;
     }
 
-    public void update(Department department) throws SQLException {
+    public Page<Department> findPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        int pageSize = Page.clampLimit(limit);
+        List<Department> departments = new ArrayList<>();
+        String sql = "SELECT * FROM Departments"
+                + (afterId != null ? " WHERE DepartmentID " + sort.keysetOperator() + " ?" : "")
+                + " ORDER BY DepartmentID " + sort.name() + " LIMIT ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    departments.add(mapResultSet(rs));
+                }
+            }
+        }
+        return Page.of(departments, pageSize, Department::getDepartmentID);
+    }
+
+    // Returns false when no row matched, e.g. the record was deleted in the meantime
+    public boolean update(Department department) throws SQLException {
         String sql = "UPDATE Departments SET Name=?, Description=?, UpdatedAt=CURRENT_TIMESTAMP WHERE DepartmentID=?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, department.getName());
             stmt.setString(2, department.getDescription());
             stmt.setInt(3, department.getDepartmentID());
-            stmt.executeUpdate();
+            return stmt.executeUpdate() > 0;
         }
     }
 
     public void delete(Integer id) throws SQLException {
         String sql = "DELETE FROM Departments WHERE DepartmentID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
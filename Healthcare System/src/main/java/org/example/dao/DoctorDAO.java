@@ -1,38 +1,95 @@
 package org.example.dao;
 
+import org.example.models.Page;
 import org.example.models.Doctor;
+import org.example.models.MedicalLog;
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 public class DoctorDAO {
-    private Connection conn;
+    private static final String INSERT_SQL = "INSERT INTO Doctors (FirstName, LastName, DepartmentID, Phone, Email, HireDate) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
 
-    public DoctorDAO(Connection conn) {
-        this.conn = conn;
+    private static final String SEARCH_SQL = """
+            SELECT *
+            FROM Doctors
+            WHERE (FirstName || ' ' || LastName) ILIKE ? OR Email ILIKE ? OR DoctorID = ?
+            ORDER BY (DoctorID = ?) DESC, LastName, FirstName, DoctorID
+            LIMIT ?
+            """;
+
+    private final DataSource dataSource;
+
+    public DoctorDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
-    public void create(Doctor doctor) throws SQLException {
-        String sql = "INSERT INTO Doctors (FirstName, LastName, DepartmentID, Phone, Email, HireDate) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, doctor.getFirstName());
-            stmt.setString(2, doctor.getLastName());
-            stmt.setInt(3, doctor.getDepartmentID());
-            stmt.setString(4, doctor.getPhone());
-            stmt.setString(5, doctor.getEmail());
-            stmt.setDate(6, Date.valueOf(doctor.getHireDate()));
-            stmt.executeUpdate();
-            
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                doctor.setDoctorID(rs.getInt(1));
+    // The audit entry is written in the same transaction
+    public void create(Doctor doctor, MedicalLog audit) throws SQLException {
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, doctor);
+                stmt.executeUpdate();
+
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    doctor.setDoctorID(rs.getInt(1));
+                }
+            }
+            AuditOutboxDAO.insert(conn, audit);
+            return null;
+        });
+    }
+
+    // Inserts all rows with JDBC batching in one transaction; returns generated IDs in input order.
+    // audit is called once the row has its ID, and its entry is written in the same transaction.
+    public List<Integer> createBatch(List<Doctor> doctors, Function<Doctor, MedicalLog> audit) throws SQLException {
+        List<Integer> ids = new ArrayList<>(doctors.size());
+        if (doctors.isEmpty()) {
+            return ids;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < doctors.size(); from += BATCH_SIZE) {
+                    List<Doctor> chunk = doctors.subList(from, Math.min(from + BATCH_SIZE, doctors.size()));
+                    for (Doctor doctor : chunk) {
+                        bindInsert(stmt, doctor);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        int index = 0;
+                        while (rs.next()) {
+                            int id = rs.getInt(1);
+                            chunk.get(index++).setDoctorID(id);
+                            ids.add(id);
+                        }
+                    }
+                    List<MedicalLog> entries = new ArrayList<>(chunk.size());
+                    for (Doctor item : chunk) {
+                        entries.add(audit.apply(item));
+                    }
+                    AuditOutboxDAO.insertAll(conn, entries);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
+        return ids;
     }
 
     public Doctor findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Doctors WHERE DoctorID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -44,8 +101,9 @@ public class DoctorDAO {
 
     public List<Doctor> findAll() throws SQLException {
         List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM Doctors";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "SELECT * FROM Doctors ORDER BY DoctorID";
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 doctors.add(mapResultSet(rs));
             }
@@ -53,26 +111,98 @@ public class DoctorDAO {
         return doctors;
     }
 
-    public void update(Doctor doctor) throws SQLException {
-        String sql = "UPDATE Doctors SET FirstName=?, LastName=?, DepartmentID=?, Phone=?, Email=?, HireDate=?, UpdatedAt=CURRENT_TIMESTAMP WHERE DoctorID=?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, doctor.getFirstName());
-            stmt.setString(2, doctor.getLastName());
-            stmt.setInt(3, doctor.getDepartmentID());
-            stmt.setString(4, doctor.getPhone());
-            stmt.setString(5, doctor.getEmail());
-            stmt.setDate(6, Date.valueOf(doctor.getHireDate()));
-            stmt.setInt(7, doctor.getDoctorID());
-            stmt.executeUpdate();
+    public Page<Doctor> findPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        int pageSize = Page.clampLimit(limit);
+        List<Doctor> doctors = new ArrayList<>();
+        String sql = "SELECT * FROM Doctors"
+                + (afterId != null ? " WHERE DoctorID " + sort.keysetOperator() + " ?" : "")
+                + " ORDER BY DoctorID " + sort.name() + " LIMIT ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapResultSet(rs));
+                }
+            }
         }
+        return Page.of(doctors, pageSize, Doctor::getDoctorID);
     }
 
-    public void delete(Integer id) throws SQLException {
-        String sql = "DELETE FROM Doctors WHERE DoctorID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+    // Name/email/ID lookup returning at most limit rows, for pickers that must not load every doctor
+    public List<Doctor> search(String query, int limit) throws SQLException {
+        String term = query.trim();
+        String pattern = "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        int id;
+        try {
+            id = Integer.parseInt(term);
+        } catch (NumberFormatException e) {
+            id = -1;
         }
+
+        List<Doctor> doctors = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SEARCH_SQL)) {
+            stmt.setString(1, pattern);
+            stmt.setString(2, pattern);
+            stmt.setInt(3, id);
+            stmt.setInt(4, id);
+            stmt.setInt(5, Page.clampLimit(limit));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapResultSet(rs));
+                }
+            }
+        }
+        return doctors;
+    }
+
+    // Returns false when no row matched, e.g. the record was deleted in the meantime
+    // The audit entry is only written when the row was there to update
+    public boolean update(Doctor doctor, MedicalLog audit) throws SQLException {
+        String sql = "UPDATE Doctors SET FirstName=?, LastName=?, DepartmentID=?, Phone=?, Email=?, HireDate=?, UpdatedAt=CURRENT_TIMESTAMP WHERE DoctorID=?";
+        return Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, doctor.getFirstName());
+                stmt.setString(2, doctor.getLastName());
+                stmt.setInt(3, doctor.getDepartmentID());
+                stmt.setString(4, doctor.getPhone());
+                stmt.setString(5, doctor.getEmail());
+                stmt.setDate(6, Date.valueOf(doctor.getHireDate()));
+                stmt.setInt(7, doctor.getDoctorID());
+                boolean updated = stmt.executeUpdate() > 0;
+                if (updated) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+                return updated;
+            }
+        });
+    }
+
+    public void delete(Integer id, MedicalLog audit) throws SQLException {
+        String sql = "DELETE FROM Doctors WHERE DoctorID = ?";
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                if (stmt.executeUpdate() > 0) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void bindInsert(PreparedStatement stmt, Doctor doctor) throws SQLException {
+        stmt.setString(1, doctor.getFirstName());
+        stmt.setString(2, doctor.getLastName());
+        stmt.setInt(3, doctor.getDepartmentID());
+        stmt.setString(4, doctor.getPhone());
+        stmt.setString(5, doctor.getEmail());
+        stmt.setDate(6, Date.valueOf(doctor.getHireDate()));
     }
 
     private Doctor mapResultSet(ResultSet rs) throws SQLException {
@@ -0,0 +1,24 @@
+package org.example.dao;
+
+import org.example.models.Page;
+
+// Keyset page request: afterId is the previous page's nextCursor, or null for the first page
+public class PageRequest {
+    private final Integer afterId;
+    private final int limit;
+    private final SortOrder sort;
+
+    public PageRequest(Integer afterId, int limit, SortOrder sort) {
+        this.afterId = afterId;
+        this.limit = Page.clampLimit(limit);
+        this.sort = sort;
+    }
+
+    public static PageRequest first(int limit, SortOrder sort) {
+        return new PageRequest(null, limit, sort);
+    }
+
+    public Integer getAfterId() { return afterId; }
+    public int getLimit() { return limit; }
+    public SortOrder getSort() { return sort; }
+}
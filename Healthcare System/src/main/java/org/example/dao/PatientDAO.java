@@ -1,39 +1,117 @@
 package org.example.dao;
 
+import org.example.models.MedicalLog;
+import org.example.models.Page;
 import org.example.models.Patient;
+import javax.sql.DataSource;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 public class PatientDAO {
-    private Connection conn;
-
-    public PatientDAO(Connection conn) {
-        this.conn = conn;
-    }
-
-    public void create(Patient patient) throws SQLException {
-        String sql = "INSERT INTO Patient (FirstName, LastName, DOB, Gender, Email, Phone, Address) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, patient.getFirstName());
-            stmt.setString(2, patient.getLastName());
-            stmt.setDate(3, Date.valueOf(patient.getDob()));
-            stmt.setString(4, patient.getGender());
-            stmt.setString(5, patient.getEmail());
-            stmt.setString(6, patient.getPhone());
-            stmt.setString(7, patient.getAddress());
-            stmt.executeUpdate();
-            
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                patient.setPatientID(rs.getInt(1));
+    private static final String INSERT_SQL = "INSERT INTO Patient (FirstName, LastName, DOB, Gender, Email, Phone, Address) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+    private static final int NAME_FETCH_SIZE = 1_000;
+    private static final String UNDEFINED_FUNCTION = "42883";
+
+    // Ranked by best trigram similarity across name, email and phone; exact ID matches first
+    private static final String SEARCH_SQL = """
+            SELECT *
+            FROM Patient
+            WHERE (FirstName || ' ' || LastName) ILIKE ? OR Email ILIKE ? OR Phone LIKE ? OR PatientID = ?
+            ORDER BY (PatientID = ?) DESC,
+                     GREATEST(similarity(FirstName || ' ' || LastName, ?), similarity(Email, ?), similarity(Phone, ?)) DESC,
+                     PatientID
+            LIMIT ?
+            """;
+
+    // Used when the pg_trgm extension is not installed
+    private static final String SEARCH_FALLBACK_SQL = """
+            SELECT *
+            FROM Patient
+            WHERE (FirstName || ' ' || LastName) ILIKE ? OR Email ILIKE ? OR Phone LIKE ? OR PatientID = ?
+            ORDER BY (PatientID = ?) DESC, LastName, FirstName, PatientID
+            LIMIT ?
+            """;
+
+    private final DataSource dataSource;
+
+    public interface NameVisitor {
+        void visit(int id, String firstName, String lastName, LocalDate dob);
+    }
+
+    public PatientDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // The audit entry is written in the same transaction and gets the new PatientID
+    public void create(Patient patient, MedicalLog audit) throws SQLException {
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, patient);
+                stmt.executeUpdate();
+
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    patient.setPatientID(rs.getInt(1));
+                }
             }
+            if (audit != null) {
+                audit.setPatientID(patient.getPatientID());
+            }
+            AuditOutboxDAO.insert(conn, audit);
+            return null;
+        });
+    }
+
+    // Inserts all rows with JDBC batching in one transaction; returns generated IDs in input order.
+    // audit is called once the row has its ID, and its entry is written in the same transaction.
+    public List<Integer> createBatch(List<Patient> patients, Function<Patient, MedicalLog> audit) throws SQLException {
+        List<Integer> ids = new ArrayList<>(patients.size());
+        if (patients.isEmpty()) {
+            return ids;
         }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < patients.size(); from += BATCH_SIZE) {
+                    List<Patient> chunk = patients.subList(from, Math.min(from + BATCH_SIZE, patients.size()));
+                    for (Patient patient : chunk) {
+                        bindInsert(stmt, patient);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        int index = 0;
+                        while (rs.next()) {
+                            int id = rs.getInt(1);
+                            chunk.get(index++).setPatientID(id);
+                            ids.add(id);
+                        }
+                    }
+                    List<MedicalLog> entries = new ArrayList<>(chunk.size());
+                    for (Patient item : chunk) {
+                        entries.add(audit.apply(item));
+                    }
+                    AuditOutboxDAO.insertAll(conn, entries);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return ids;
     }
 
     public Patient findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Patient WHERE PatientID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -45,8 +123,9 @@ public class PatientDAO {
 
     public List<Patient> findAll() throws SQLException {
         List<Patient> patients = new ArrayList<>();
-        String sql = "SELECT * FROM Patient";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = "SELECT * FROM Patient ORDER BY PatientID";
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 patients.add(mapResultSet(rs));
             }
@@ -54,29 +133,158 @@ public class PatientDAO {
         return patients;
     }
 
-    public void update(Patient patient) throws SQLException {
-        String sql = "UPDATE Patient SET FirstName=?, LastName=?, DOB=?, Gender=?, Email=?, Phone=?, Address=?, UpdatedAt=CURRENT_TIMESTAMP WHERE PatientID=?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, patient.getFirstName());
-            stmt.setString(2, patient.getLastName());
-            stmt.setDate(3, Date.valueOf(patient.getDob()));
-            stmt.setString(4, patient.getGender());
-            stmt.setString(5, patient.getEmail());
-            stmt.setString(6, patient.getPhone());
-            stmt.setString(7, patient.getAddress());
-            stmt.setInt(8, patient.getPatientID());
-            stmt.executeUpdate();
+    // Streams only the columns the fuzzy name index needs. The driver uses a server-side cursor only inside a
+    // transaction with a fetch size, so the directory is read in chunks instead of all at once.
+    public void forEachName(NameVisitor visitor) throws SQLException {
+        String sql = "SELECT PatientID, FirstName, LastName, DOB FROM Patient";
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(NAME_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Date dob = rs.getDate("DOB");
+                        visitor.visit(rs.getInt("PatientID"), rs.getString("FirstName"), rs.getString("LastName"),
+                                dob != null ? dob.toLocalDate() : null);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    public Page<Patient> findPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        int pageSize = Page.clampLimit(limit);
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT * FROM Patient"
+                + (afterId != null ? " WHERE PatientID " + sort.keysetOperator() + " ?" : "")
+                + " ORDER BY PatientID " + sort.name() + " LIMIT ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSet(rs));
+                }
+            }
         }
+        return Page.of(patients, pageSize, Patient::getPatientID);
     }
 
-    public void delete(Integer id) throws SQLException {
+    // Server-side substring search over name, email, phone and ID, returning at most limit ranked rows
+    public List<Patient> search(String query, int limit) throws SQLException {
+        String term = query.trim();
+        String pattern = "%" + escapeLike(term) + "%";
+        int id = parseId(term);
+        int maxRows = Page.clampLimit(limit);
+
+        try {
+            return runSearch(SEARCH_SQL, stmt -> {
+                bindSearchFilter(stmt, pattern, id);
+                stmt.setString(6, term);
+                stmt.setString(7, term);
+                stmt.setString(8, term);
+                stmt.setInt(9, maxRows);
+            });
+        } catch (SQLException e) {
+            if (!UNDEFINED_FUNCTION.equals(e.getSQLState())) {
+                throw e;
+            }
+            return runSearch(SEARCH_FALLBACK_SQL, stmt -> {
+                bindSearchFilter(stmt, pattern, id);
+                stmt.setInt(6, maxRows);
+            });
+        }
+    }
+
+    // Returns false when no row matched, e.g. the record was deleted in the meantime
+    // The audit entry is only written when the row was there to update
+    public boolean update(Patient patient, MedicalLog audit) throws SQLException {
+        String sql = "UPDATE Patient SET FirstName=?, LastName=?, DOB=?, Gender=?, Email=?, Phone=?, Address=?, UpdatedAt=CURRENT_TIMESTAMP WHERE PatientID=?";
+        return Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, patient.getFirstName());
+                stmt.setString(2, patient.getLastName());
+                stmt.setDate(3, Date.valueOf(patient.getDob()));
+                stmt.setString(4, patient.getGender());
+                stmt.setString(5, patient.getEmail());
+                stmt.setString(6, patient.getPhone());
+                stmt.setString(7, patient.getAddress());
+                stmt.setInt(8, patient.getPatientID());
+                boolean updated = stmt.executeUpdate() > 0;
+                if (updated) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+                return updated;
+            }
+        });
+    }
+
+    public void delete(Integer id, MedicalLog audit) throws SQLException {
         String sql = "DELETE FROM Patient WHERE PatientID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        Transactions.run(dataSource, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                if (stmt.executeUpdate() > 0) {
+                    AuditOutboxDAO.insert(conn, audit);
+                }
+            }
+            return null;
+        });
+    }
+
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private List<Patient> runSearch(String sql, StatementBinder binder) throws SQLException {
+        List<Patient> patients = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSet(rs));
+                }
+            }
+        }
+        return patients;
+    }
+
+    private void bindSearchFilter(PreparedStatement stmt, String pattern, int id) throws SQLException {
+        stmt.setString(1, pattern);
+        stmt.setString(2, pattern);
+        stmt.setString(3, pattern);
+        stmt.setInt(4, id);
+        stmt.setInt(5, id);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Non-numeric queries map to -1, which never matches a SERIAL key
+    private static int parseId(String term) {
+        try {
+            return Integer.parseInt(term);
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
+    private void bindInsert(PreparedStatement stmt, Patient patient) throws SQLException {
+        stmt.setString(1, patient.getFirstName());
+        stmt.setString(2, patient.getLastName());
+        stmt.setDate(3, Date.valueOf(patient.getDob()));
+        stmt.setString(4, patient.getGender());
+        stmt.setString(5, patient.getEmail());
+        stmt.setString(6, patient.getPhone());
+        stmt.setString(7, patient.getAddress());
+    }
+
     private Patient mapResultSet(ResultSet rs) throws SQLException {
         Patient patient = new Patient();
         patient.setPatientID(rs.getInt("PatientID"));
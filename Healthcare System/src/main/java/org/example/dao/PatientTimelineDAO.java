@@ -0,0 +1,130 @@
+package org.example.dao;
+
+import org.example.models.TimelineEntry;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// A patient's appointments, prescriptions and feedback for the timeline, newest first by (timestamp, id).
+// Each read starts strictly after (before, beforeId), or at the newest row when before is null, and walks
+// the per-patient timeline indexes backwards, so a page costs the same however long the history is.
+public class PatientTimelineDAO {
+    private static final String APPOINTMENTS_SQL = """
+            SELECT a.AppointmentID AS EntryID, a.AppointmentDate + a.AppointmentTime AS At, a.Status,
+                   d.FirstName, d.LastName
+            FROM Appointments a
+            JOIN Doctors d ON d.DoctorID = a.DoctorID
+            WHERE a.PatientID = ?
+            """;
+    private static final String PRESCRIPTIONS_SQL = """
+            SELECT p.PrescriptionID AS EntryID, p.DateIssued AS At, p.Notes, d.FirstName, d.LastName,
+                   (SELECT string_agg(i.MedicineName || ' ' || i.Frequency, ', ' ORDER BY i.ItemID)
+                    FROM PrescriptionItems i WHERE i.PrescriptionID = p.PrescriptionID) AS Medications
+            FROM Prescriptions p
+            JOIN Doctors d ON d.DoctorID = p.DoctorID
+            WHERE p.PatientID = ?
+            """;
+    private static final String FEEDBACK_SQL = """
+            SELECT f.FeedbackID AS EntryID, f.CreatedAt AS At, f.Rating, f.Comments, d.FirstName, d.LastName
+            FROM PatientFeedback f
+            JOIN Doctors d ON d.DoctorID = f.DoctorID
+            WHERE f.PatientID = ? AND f.CreatedAt IS NOT NULL
+            """;
+
+    @FunctionalInterface
+    private interface RowMapper {
+        TimelineEntry map(ResultSet rs) throws SQLException;
+    }
+
+    private final DataSource dataSource;
+
+    public PatientTimelineDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public List<TimelineEntry> findAppointments(Integer patientID, LocalDateTime before, int beforeId, int limit) throws SQLException {
+        // The key expression matches idx_appointment_patient_timeline
+        return query(APPOINTMENTS_SQL, "a.AppointmentDate + a.AppointmentTime", "a.AppointmentID", false,
+                patientID, before, beforeId, limit,
+                rs -> new TimelineEntry(TimelineEntry.Source.APPOINTMENT, rs.getString("EntryID"), at(rs),
+                        "Appointment (" + rs.getString("Status") + ")", doctor(rs)));
+    }
+
+    public List<TimelineEntry> findPrescriptions(Integer patientID, LocalDateTime before, int beforeId, int limit) throws SQLException {
+        return query(PRESCRIPTIONS_SQL, "p.DateIssued", "p.PrescriptionID", true,
+                patientID, before, beforeId, limit,
+                rs -> new TimelineEntry(TimelineEntry.Source.PRESCRIPTION, rs.getString("EntryID"), at(rs),
+                        "Prescription", join(doctor(rs), rs.getString("Medications"), rs.getString("Notes"))));
+    }
+
+    public List<TimelineEntry> findFeedback(Integer patientID, LocalDateTime before, int beforeId, int limit) throws SQLException {
+        // CreatedAt is a full timestamp; feedback without one has no place on the timeline
+        return query(FEEDBACK_SQL, "f.CreatedAt", "f.FeedbackID", false,
+                patientID, before, beforeId, limit,
+                rs -> new TimelineEntry(TimelineEntry.Source.FEEDBACK, rs.getString("EntryID"), at(rs),
+                        "Feedback (" + rs.getInt("Rating") + "/5)", join(doctor(rs), rs.getString("Comments"))));
+    }
+
+    private List<TimelineEntry> query(String select, String key, String id, boolean dateKey, Integer patientID,
+                                      LocalDateTime before, int beforeId, int limit, RowMapper mapper) throws SQLException {
+        Object bound = null;
+        if (before != null) {
+            bound = Timestamp.valueOf(before);
+            if (dateKey) {
+                // A DATE column only holds midnights, so a position later in the day takes in that whole day
+                if (!before.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+                    beforeId = Integer.MAX_VALUE;
+                }
+                bound = Date.valueOf(before.toLocalDate());
+            }
+        }
+
+        String sql = select
+                + (bound != null ? " AND (" + key + ", " + id + ") < (?, ?)" : "")
+                + " ORDER BY " + key + " DESC, " + id + " DESC LIMIT ?";
+        List<TimelineEntry> entries = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            stmt.setInt(index++, patientID);
+            if (bound != null) {
+                stmt.setObject(index++, bound);
+                stmt.setInt(index++, beforeId);
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapper.map(rs));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static LocalDateTime at(ResultSet rs) throws SQLException {
+        return rs.getTimestamp("At").toLocalDateTime();
+    }
+
+    private static String doctor(ResultSet rs) throws SQLException {
+        return "Dr. " + rs.getString("FirstName") + " " + rs.getString("LastName");
+    }
+
+    private static String join(String... parts) {
+        List<String> present = new ArrayList<>();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                present.add(part);
+            }
+        }
+        return String.join(" - ", present);
+    }
+}
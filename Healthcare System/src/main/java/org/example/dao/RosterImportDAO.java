@@ -0,0 +1,239 @@
+package org.example.dao;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RosterImportDAO {
+    public enum Roster { PATIENTS, DOCTORS }
+
+    private static final String PATIENT_STAGING_SQL = """
+            CREATE TEMP TABLE patient_import_staging (
+                LineNo BIGINT NOT NULL,
+                FirstName VARCHAR(100),
+                LastName VARCHAR(100),
+                DOB DATE,
+                Gender VARCHAR(10),
+                Email VARCHAR(150),
+                Phone VARCHAR(15),
+                Address TEXT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String DOCTOR_STAGING_SQL = """
+            CREATE TEMP TABLE doctor_import_staging (
+                LineNo BIGINT NOT NULL,
+                FirstName VARCHAR(100),
+                LastName VARCHAR(100),
+                DepartmentID INTEGER,
+                Phone VARCHAR(15),
+                Email VARCHAR(150),
+                HireDate DATE
+            ) ON COMMIT DROP
+            """;
+
+    private static final String PATIENT_COPY_SQL =
+            "COPY patient_import_staging (LineNo, FirstName, LastName, DOB, Gender, Email, Phone, Address) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String DOCTOR_COPY_SQL =
+            "COPY doctor_import_staging (LineNo, FirstName, LastName, DepartmentID, Phone, Email, HireDate) FROM STDIN WITH (FORMAT csv)";
+
+    // A MongoDB ObjectId for the audit entry of each merged row: seconds since the epoch, then 64 random bits
+    private static final String NEW_LOG_ID =
+            "lpad(to_hex(extract(epoch FROM clock_timestamp())::bigint), 8, '0') || substr(md5(random()::text), 1, 16)";
+
+    // Last row in the file wins when the same email appears more than once; returns (inserted, updated).
+    // Every merged row gets its audit entry in the same statement (the parameter is who ran the import).
+    private static final String PATIENT_MERGE_SQL = """
+            WITH merged AS (
+                INSERT INTO Patient (FirstName, LastName, DOB, Gender, Email, Phone, Address)
+                SELECT DISTINCT ON (Email) FirstName, LastName, DOB, Gender, Email, Phone, Address
+                FROM patient_import_staging
+                ORDER BY Email, LineNo DESC
+                ON CONFLICT (Email) DO UPDATE SET
+                    FirstName = EXCLUDED.FirstName,
+                    LastName = EXCLUDED.LastName,
+                    DOB = EXCLUDED.DOB,
+                    Gender = EXCLUDED.Gender,
+                    Phone = EXCLUDED.Phone,
+                    Address = EXCLUDED.Address,
+                    UpdatedAt = CURRENT_TIMESTAMP
+                RETURNING PatientID, FirstName, LastName, (xmax = 0) AS inserted
+            ),
+            audit AS (
+                INSERT INTO AuditOutbox (LogID, PatientID, Action, Details, PerformedBy, CreatedAt)
+                SELECT %s, PatientID,
+                       CASE WHEN inserted THEN 'Patient Registered' ELSE 'Patient Updated' END,
+                       CASE WHEN inserted THEN 'New patient: ' ELSE 'Updated patient: ' END
+                           || FirstName || ' ' || LastName || ' (roster import)',
+                       ?, LOCALTIMESTAMP
+                FROM merged
+            )
+            SELECT COUNT(*) FILTER (WHERE inserted), COUNT(*) FILTER (WHERE NOT inserted) FROM merged
+            """.formatted(NEW_LOG_ID);
+
+    private static final String DOCTOR_LATEST_SQL = """
+            SELECT DISTINCT ON (Email) FirstName, LastName, DepartmentID, Phone, Email, HireDate
+            FROM doctor_import_staging
+            ORDER BY Email, LineNo DESC
+            """;
+
+    // Doctors.Email is not unique, so existing rows are updated first and the rest inserted. Both return how many
+    // rows they touched and write an audit entry per row, like the patient merge.
+    private static final String DOCTOR_UPDATE_SQL = """
+            WITH merged AS (
+                UPDATE Doctors d SET
+                    FirstName = s.FirstName,
+                    LastName = s.LastName,
+                    DepartmentID = s.DepartmentID,
+                    Phone = s.Phone,
+                    HireDate = s.HireDate,
+                    UpdatedAt = CURRENT_TIMESTAMP
+                FROM (%s) s
+                WHERE d.Email = s.Email
+                RETURNING d.FirstName, d.LastName
+            ),
+            audit AS (
+                INSERT INTO AuditOutbox (LogID, PatientID, Action, Details, PerformedBy, CreatedAt)
+                SELECT %s, NULL, 'Doctor Updated', 'Updated doctor: ' || FirstName || ' ' || LastName || ' (roster import)',
+                       ?, LOCALTIMESTAMP
+                FROM merged
+            )
+            SELECT COUNT(*) FROM merged
+            """.formatted(DOCTOR_LATEST_SQL, NEW_LOG_ID);
+
+    private static final String DOCTOR_INSERT_SQL = """
+            WITH merged AS (
+                INSERT INTO Doctors (FirstName, LastName, DepartmentID, Phone, Email, HireDate)
+                SELECT s.FirstName, s.LastName, s.DepartmentID, s.Phone, s.Email, s.HireDate
+                FROM (%s) s
+                WHERE NOT EXISTS (SELECT 1 FROM Doctors d WHERE d.Email = s.Email)
+                RETURNING FirstName, LastName
+            ),
+            audit AS (
+                INSERT INTO AuditOutbox (LogID, PatientID, Action, Details, PerformedBy, CreatedAt)
+                SELECT %s, NULL, 'Doctor Added', 'New doctor: ' || FirstName || ' ' || LastName || ' (roster import)',
+                       ?, LOCALTIMESTAMP
+                FROM merged
+            )
+            SELECT COUNT(*) FROM merged
+            """.formatted(DOCTOR_LATEST_SQL, NEW_LOG_ID);
+
+    private static final String DOCTOR_ORPHANS_SQL = """
+            DELETE FROM doctor_import_staging s
+            WHERE NOT EXISTS (SELECT 1 FROM Departments d WHERE d.DepartmentID = s.DepartmentID)
+            RETURNING s.LineNo, s.DepartmentID
+            """;
+
+    private final DataSource dataSource;
+
+    public RosterImportDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Opens a dedicated connection, creates the temp staging table and starts a COPY stream into it
+    public StagingSession begin(Roster roster) throws SQLException {
+        Connection conn = dataSource.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(roster == Roster.PATIENTS ? PATIENT_STAGING_SQL : DOCTOR_STAGING_SQL);
+            }
+            CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn(roster == Roster.PATIENTS ? PATIENT_COPY_SQL : DOCTOR_COPY_SQL);
+            return new StagingSession(conn, copyIn, roster);
+        } catch (SQLException e) {
+            conn.rollback();
+            conn.close();
+            throw e;
+        }
+    }
+
+    public static class StagingSession implements AutoCloseable {
+        private final Connection conn;
+        private final CopyIn copyIn;
+        private final Roster roster;
+        private boolean committed;
+
+        private StagingSession(Connection conn, CopyIn copyIn, Roster roster) {
+            this.conn = conn;
+            this.copyIn = copyIn;
+            this.roster = roster;
+        }
+
+        // Streams newline-terminated CSV rows straight into the staging table
+        public void write(String csvRows) throws SQLException {
+            byte[] bytes = csvRows.getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        }
+
+        public long finishCopy() throws SQLException {
+            return copyIn.endCopy();
+        }
+
+        // Removes doctor rows pointing at unknown departments; returns {lineNo, departmentID} pairs
+        public List<long[]> removeOrphans() throws SQLException {
+            List<long[]> orphans = new ArrayList<>();
+            if (roster != Roster.DOCTORS) {
+                return orphans;
+            }
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(DOCTOR_ORPHANS_SQL)) {
+                while (rs.next()) {
+                    orphans.add(new long[] { rs.getLong(1), rs.getLong(2) });
+                }
+            }
+            return orphans;
+        }
+
+        // Merges staged rows into the live table, with an audit outbox row per merged row; returns {inserted, updated}
+        public long[] merge(String performedBy) throws SQLException {
+            if (roster == Roster.PATIENTS) {
+                try (PreparedStatement stmt = conn.prepareStatement(PATIENT_MERGE_SQL)) {
+                    stmt.setString(1, performedBy);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        return new long[] { rs.getLong(1), rs.getLong(2) };
+                    }
+                }
+            }
+            long updated = count(DOCTOR_UPDATE_SQL, performedBy);
+            long inserted = count(DOCTOR_INSERT_SQL, performedBy);
+            return new long[] { inserted, updated };
+        }
+
+        private long count(String sql, String performedBy) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, performedBy);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            }
+        }
+
+        public void commit() throws SQLException {
+            conn.commit();
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                if (!committed) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            } finally {
+                conn.close();
+            }
+        }
+    }
+}
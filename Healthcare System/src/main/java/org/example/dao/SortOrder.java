@@ -0,0 +1,18 @@
+package org.example.dao;
+
+// Direction for keyset (seek) pagination on the primary key
+public enum SortOrder {
+    ASC(">"),
+    DESC("<");
+
+    private final String keysetOperator;
+
+    SortOrder(String keysetOperator) {
+        this.keysetOperator = keysetOperator;
+    }
+
+    // Comparison used against the cursor, e.g. "PatientID > ?" for ascending pages
+    public String keysetOperator() {
+        return keysetOperator;
+    }
+}
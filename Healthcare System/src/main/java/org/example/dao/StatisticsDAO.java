@@ -0,0 +1,76 @@
+package org.example.dao;
+
+import org.example.models.DashboardStats;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StatisticsDAO {
+    // Every dashboard figure as (metric, label, count) rows, computed by PostgreSQL in a single statement
+    private static final String STATS_SQL = """
+            SELECT 'patients' AS metric, NULL AS label, COUNT(*) AS total FROM Patient
+            UNION ALL
+            SELECT 'doctors', NULL, COUNT(*) FROM Doctors
+            UNION ALL
+            SELECT 'departments', NULL, COUNT(*) FROM Departments
+            UNION ALL
+            SELECT 'appointments', NULL, COUNT(*) FROM Appointments
+            UNION ALL
+            SELECT 'today', NULL, COUNT(*) FROM Appointments WHERE AppointmentDate = CURRENT_DATE
+            UNION ALL
+            SELECT 'week', NULL, COUNT(*) FROM Appointments
+            WHERE AppointmentDate >= date_trunc('week', CURRENT_DATE)::date
+              AND AppointmentDate < date_trunc('week', CURRENT_DATE)::date + 7
+            UNION ALL
+            SELECT 'status', Status, COUNT(*) FROM Appointments GROUP BY Status
+            UNION ALL
+            SELECT 'department', dep.Name, COUNT(a.AppointmentID)
+            FROM Departments dep
+            LEFT JOIN Doctors d ON d.DepartmentID = dep.DepartmentID
+            LEFT JOIN Appointments a ON a.DoctorID = d.DoctorID
+            GROUP BY dep.DepartmentID, dep.Name
+            """;
+
+    private final DataSource dataSource;
+
+    public StatisticsDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public DashboardStats loadStatistics() throws SQLException {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Long> byDepartment = new LinkedHashMap<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(STATS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String metric = rs.getString("metric");
+                String label = rs.getString("label");
+                long total = rs.getLong("total");
+                switch (metric) {
+                    case "status" -> byStatus.put(label, total);
+                    // Department names are not unique, so same-named departments are summed
+                    case "department" -> byDepartment.merge(label, total, Long::sum);
+                    default -> totals.put(metric, total);
+                }
+            }
+        }
+
+        return new DashboardStats(
+                totals.getOrDefault("patients", 0L),
+                totals.getOrDefault("doctors", 0L),
+                totals.getOrDefault("departments", 0L),
+                totals.getOrDefault("appointments", 0L),
+                totals.getOrDefault("today", 0L),
+                totals.getOrDefault("week", 0L),
+                byStatus,
+                byDepartment);
+    }
+}
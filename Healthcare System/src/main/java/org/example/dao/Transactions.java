@@ -0,0 +1,33 @@
+package org.example.dao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Runs a unit of work on one pooled connection in a single transaction: committed when the work returns,
+// rolled back when it throws
+final class Transactions {
+    @FunctionalInterface
+    interface Work<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private Transactions() {
+    }
+
+    static <T> T run(DataSource dataSource, Work<T> work) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -1,20 +1,23 @@
 package org.example.dao;
 
+import org.example.models.Page;
 import org.example.models.User;
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UserDAO {
-    private Connection conn;
+    private final DataSource dataSource;
 
-    public UserDAO(Connection conn) {
-        this.conn = conn;
+    public UserDAO(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     public User authenticate(String username, String password) throws SQLException {
         String sql = "SELECT * FROM Users WHERE Username = ? AND Password = ? AND IsActive = TRUE";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, username);
             stmt.setString(2, password);
             ResultSet rs = stmt.executeQuery();
@@ -27,7 +30,8 @@ public class UserDAO {
 
     public void create(User user) throws SQLException {
         String sql = "INSERT INTO Users (Username, Password, Role, FirstName, LastName, Email) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
             stmt.setString(3, user.getRole());
@@ -45,7 +49,8 @@ public class UserDAO {
 
     public User findById(Integer id) throws SQLException {
         String sql = "SELECT * FROM Users WHERE UserID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -58,7 +63,8 @@ public class UserDAO {
     public List<User> findAll() throws SQLException {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM Users";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 users.add(mapResultSet(rs));
             }
@@ -66,9 +72,32 @@ public class UserDAO {
         return users;
     }
 
+    public Page<User> findPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        int pageSize = Page.clampLimit(limit);
+        List<User> users = new ArrayList<>();
+        String sql = "SELECT * FROM Users"
+                + (afterId != null ? " WHERE UserID " + sort.keysetOperator() + " ?" : "")
+                + " ORDER BY UserID " + sort.name() + " LIMIT ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapResultSet(rs));
+                }
+            }
+        }
+        return Page.of(users, pageSize, User::getUserID);
+    }
+
     public void update(User user) throws SQLException {
         String sql = "UPDATE Users SET Username=?, Password=?, Role=?, FirstName=?, LastName=?, Email=?, IsActive=?, UpdatedAt=CURRENT_TIMESTAMP WHERE UserID=?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
             stmt.setString(3, user.getRole());
@@ -83,7 +112,8 @@ public class UserDAO {
 
     public void delete(Integer id) throws SQLException {
         String sql = "DELETE FROM Users WHERE UserID = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
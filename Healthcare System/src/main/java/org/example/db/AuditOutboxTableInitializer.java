@@ -0,0 +1,26 @@
+package org.example.db;
+
+import java.sql.*;
+
+public class AuditOutboxTableInitializer {
+    public static void initialize(Connection conn) {
+        // No foreign key on PatientID: the audit entry for a deleted patient has to outlive the row
+        String SQL = """
+                CREATE TABLE IF NOT EXISTS AuditOutbox (
+                    OutboxID BIGSERIAL PRIMARY KEY,
+                    LogID CHAR(24) NOT NULL,
+                    PatientID INT,
+                    Action VARCHAR(100) NOT NULL,
+                    Details TEXT,
+                    PerformedBy VARCHAR(100),
+                    CreatedAt TIMESTAMP NOT NULL
+                )
+                """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(SQL);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error initializing AuditOutbox table", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class ChangeNotificationInitializer {
+    public static final String CHANNEL = "healthcare_changes";
+
+    // Payload is "<table>:<INSERT|UPDATE|DELETE>:<id>", e.g. "patient:UPDATE:42"; the id column is the trigger argument
+    private static final String FUNCTION_SQL = """
+            CREATE OR REPLACE FUNCTION notify_healthcare_change() RETURNS trigger AS $$
+            DECLARE
+                row_data JSONB;
+            BEGIN
+                IF TG_OP = 'DELETE' THEN
+                    row_data := to_jsonb(OLD);
+                ELSE
+                    row_data := to_jsonb(NEW);
+                END IF;
+                PERFORM pg_notify('%s', lower(TG_TABLE_NAME) || ':' || TG_OP || ':' || (row_data ->> TG_ARGV[0]));
+                RETURN NULL;
+            END;
+            $$ LANGUAGE plpgsql
+            """.formatted(CHANNEL);
+
+    private static final String[][] TRIGGERS = {
+            { "Patient", "patientid" },
+            { "Doctors", "doctorid" },
+            { "Departments", "departmentid" },
+            { "Appointments", "appointmentid" }
+    };
+
+    public static void initialize(Connection conn) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(FUNCTION_SQL);
+            for (String[] trigger : TRIGGERS) {
+                String name = "trg_" + trigger[0].toLowerCase() + "_notify";
+                stmt.execute("DROP TRIGGER IF EXISTS " + name + " ON " + trigger[0]);
+                stmt.execute("CREATE TRIGGER " + name + " AFTER INSERT OR UPDATE OR DELETE ON " + trigger[0]
+                        + " FOR EACH ROW EXECUTE FUNCTION notify_healthcare_change('" + trigger[1] + "')");
+            }
+            System.out.println("✓ Change notification triggers created successfully");
+        } catch (SQLException e) {
+            System.err.println("Error creating change notification triggers (caches will not sync across clients): " + e.getMessage());
+        }
+    }
+}
@@ -20,6 +20,8 @@ public class DatabaseIndexInitializer {
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointment_doctor ON Appointments(DoctorID)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointment_date ON Appointments(AppointmentDate)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointment_status ON Appointments(Status)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointment_status_date ON Appointments(Status, AppointmentDate)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointment_doctor_date ON Appointments(DoctorID, AppointmentDate)");
             
             // Department indexes
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_department_name ON Departments(Name)");
@@ -32,5 +34,44 @@ public class DatabaseIndexInitializer {
         } catch (SQLException e) {
             System.err.println("Error creating indexes: " + e.getMessage());
         }
+
+        initializeTrigramIndexes(conn);
+        initializeTimelineIndexes(conn);
+    }
+
+    // Patient timeline: each source read newest first by (timestamp, id) for one patient. Created one by one,
+    // so one that fails (e.g. a table from an older schema) does not hold back the others.
+    private static void initializeTimelineIndexes(Connection conn) {
+        String[] indexes = {
+                "CREATE INDEX IF NOT EXISTS idx_appointment_patient_timeline ON Appointments(PatientID, (AppointmentDate + AppointmentTime), AppointmentID)",
+                "CREATE INDEX IF NOT EXISTS idx_prescription_patient_timeline ON Prescriptions(PatientID, DateIssued, PrescriptionID)",
+                "CREATE INDEX IF NOT EXISTS idx_feedback_patient_timeline ON PatientFeedback(PatientID, CreatedAt, FeedbackID)"
+        };
+        int created = 0;
+        for (String index : indexes) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(index);
+                created++;
+            } catch (SQLException e) {
+                System.err.println("Error creating timeline index (that part of the timeline will scan): " + e.getMessage());
+            }
+        }
+        if (created == indexes.length) {
+            System.out.println("✓ Timeline indexes created successfully");
+        }
+    }
+
+    // Trigram GIN indexes let PatientDAO.search answer ILIKE '%term%' and similarity ranking without a table scan
+    private static void initializeTrigramIndexes(Connection conn) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_patient_fullname_trgm ON Patient USING GIN ((FirstName || ' ' || LastName) gin_trgm_ops)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_patient_email_trgm ON Patient USING GIN (Email gin_trgm_ops)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_patient_phone_trgm ON Patient USING GIN (Phone gin_trgm_ops)");
+
+            System.out.println("✓ Trigram search indexes created successfully");
+        } catch (SQLException e) {
+            System.err.println("Error creating trigram indexes (patient search will fall back to scans): " + e.getMessage());
+        }
     }
 }
@@ -14,8 +14,12 @@ public class DatabaseInitializer {
         PrescriptionItemsTableInitializer.initialize(conn);
         PatientFeedbackTableInitializer.initialize(conn);
         MedicalInventoryTableInitializer.initialize(conn);
+        AuditOutboxTableInitializer.initialize(conn);
         
         // Create indexes for performance
         DatabaseIndexInitializer.initialize(conn);
+
+        // Publish Patient/Doctors/Departments changes so other clients can update their caches
+        ChangeNotificationInitializer.initialize(conn);
     }
 }
@@ -0,0 +1,24 @@
+package org.example.models;
+
+import java.time.LocalDate;
+
+// Optional criteria for appointment listings; null fields are not filtered on
+public class AppointmentFilter {
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final String status;
+
+    public AppointmentFilter(LocalDate fromDate, LocalDate toDate, String status) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.status = status;
+    }
+
+    public static AppointmentFilter none() {
+        return new AppointmentFilter(null, null, null);
+    }
+
+    public LocalDate getFromDate() { return fromDate; }
+    public LocalDate getToDate() { return toDate; }
+    public String getStatus() { return status; }
+}
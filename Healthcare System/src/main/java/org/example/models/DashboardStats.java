@@ -0,0 +1,44 @@
+package org.example.models;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class DashboardStats {
+    private final long patientCount;
+    private final long doctorCount;
+    private final long departmentCount;
+    private final long appointmentCount;
+    private final long appointmentsToday;
+    private final long appointmentsThisWeek;
+    private final Map<String, Long> appointmentsByStatus;
+    private final Map<String, Long> appointmentsByDepartment;
+    private final LocalDateTime loadedAt;
+
+    public DashboardStats(long patientCount, long doctorCount, long departmentCount, long appointmentCount,
+                          long appointmentsToday, long appointmentsThisWeek,
+                          Map<String, Long> appointmentsByStatus, Map<String, Long> appointmentsByDepartment) {
+        this.patientCount = patientCount;
+        this.doctorCount = doctorCount;
+        this.departmentCount = departmentCount;
+        this.appointmentCount = appointmentCount;
+        this.appointmentsToday = appointmentsToday;
+        this.appointmentsThisWeek = appointmentsThisWeek;
+        this.appointmentsByStatus = Map.copyOf(appointmentsByStatus);
+        this.appointmentsByDepartment = Map.copyOf(appointmentsByDepartment);
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public long getPatientCount() { return patientCount; }
+    public long getDoctorCount() { return doctorCount; }
+    public long getDepartmentCount() { return departmentCount; }
+    public long getAppointmentCount() { return appointmentCount; }
+    public long getAppointmentsToday() { return appointmentsToday; }
+    public long getAppointmentsThisWeek() { return appointmentsThisWeek; }
+    public Map<String, Long> getAppointmentsByStatus() { return appointmentsByStatus; }
+    public Map<String, Long> getAppointmentsByDepartment() { return appointmentsByDepartment; }
+    public LocalDateTime getLoadedAt() { return loadedAt; }
+
+    public long getAppointmentsWithStatus(String status) {
+        return appointmentsByStatus.getOrDefault(status, 0L);
+    }
+}
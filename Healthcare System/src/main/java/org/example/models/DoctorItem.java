@@ -9,6 +9,12 @@ public class DoctorItem {
         this.name = "Dr. " + firstName + " " + lastName;
     }
 
+    // For rows that already carry a display name (e.g. AppointmentView)
+    public DoctorItem(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
     public Integer getId() {
         return id;
     }
@@ -0,0 +1,10 @@
+package org.example.models;
+
+import java.time.LocalDateTime;
+
+// Something recorded against a patient in MongoDB (notes, audit log entries); read back as a time-ordered history
+public interface HistoryEntry {
+    String getId();
+    Integer getPatientID();
+    LocalDateTime getTimestamp();
+}
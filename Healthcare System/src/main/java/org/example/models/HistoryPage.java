@@ -0,0 +1,24 @@
+package org.example.models;
+
+import java.util.Collections;
+import java.util.List;
+
+// A page of a patient's notes or log entries, newest first. The token is opaque; pass it back to get
+// the entries that follow.
+public class HistoryPage<T> {
+    private final List<T> items;
+    private final String nextToken;
+    private final boolean hasMore;
+
+    public HistoryPage(List<T> items, String nextToken, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextToken() { return nextToken; }
+    public boolean hasMore() { return hasMore; }
+    public boolean isEmpty() { return items.isEmpty(); }
+    public int size() { return items.size(); }
+}
@@ -0,0 +1,31 @@
+package org.example.models;
+
+public class ImportResult {
+    private final long rowsRead;
+    private final long rowsRejected;
+    private final long inserted;
+    private final long updated;
+
+    public ImportResult(long rowsRead, long rowsRejected, long inserted, long updated) {
+        this.rowsRead = rowsRead;
+        this.rowsRejected = rowsRejected;
+        this.inserted = inserted;
+        this.updated = updated;
+    }
+
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsRejected() { return rowsRejected; }
+    public long getInserted() { return inserted; }
+    public long getUpdated() { return updated; }
+
+    // Valid rows that were superseded by a later row with the same email in the same file
+    public long getDuplicates() {
+        return rowsRead - rowsRejected - inserted - updated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Read: %d | Inserted: %d | Updated: %d | Duplicates: %d | Rejected: %d",
+                rowsRead, inserted, updated, getDuplicates(), rowsRejected);
+    }
+}
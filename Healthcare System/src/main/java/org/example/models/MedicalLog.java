@@ -2,7 +2,7 @@ package org.example.models;
 
 import java.time.LocalDateTime;
 
-public class MedicalLog {
+public class MedicalLog implements HistoryEntry {
     private String id;
     private Integer patientID;
     private String action;
@@ -0,0 +1,40 @@
+package org.example.models;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated list, as returned by the services' get...Page(afterId, limit, sort) methods.
+// Pass null as afterId for the first page and the previous page's nextCursor after that; rows are ordered by
+// id, so pages stay stable while rows are inserted or deleted.
+public class Page<T> {
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final Integer nextCursor;
+    private final boolean hasMore;
+
+    public Page(List<T> items, Integer nextCursor, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Builds a page from a query that fetched limit + 1 rows; the extra row only signals hasMore
+    public static <T> Page<T> of(List<T> rows, int limit, Function<T, Integer> idOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        Integer nextCursor = items.isEmpty() ? null : idOf.apply(items.get(items.size() - 1));
+        return new Page<>(items, nextCursor, hasMore);
+    }
+
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    public List<T> getItems() { return items; }
+    public Integer getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return hasMore; }
+    public boolean isEmpty() { return items.isEmpty(); }
+    public int size() { return items.size(); }
+}
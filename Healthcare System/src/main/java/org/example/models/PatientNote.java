@@ -2,7 +2,7 @@ package org.example.models;
 
 import java.time.LocalDateTime;
 
-public class PatientNote {
+public class PatientNote implements HistoryEntry {
     private String id;
     private Integer patientID;
     private Integer doctorID;
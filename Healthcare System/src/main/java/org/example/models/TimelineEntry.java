@@ -0,0 +1,30 @@
+package org.example.models;
+
+import java.time.LocalDateTime;
+
+// One item of a patient's timeline: an appointment, prescription, feedback, note or audit log entry
+public class TimelineEntry {
+    // Declaration order breaks ties between sources at the same timestamp
+    public enum Source { APPOINTMENT, PRESCRIPTION, FEEDBACK, NOTE, LOG }
+
+    private final Source source;
+    // The record's own id: a SQL key, or the ObjectId hex string for notes and logs
+    private final String id;
+    private final LocalDateTime timestamp;
+    private final String title;
+    private final String details;
+
+    public TimelineEntry(Source source, String id, LocalDateTime timestamp, String title, String details) {
+        this.source = source;
+        this.id = id;
+        this.timestamp = timestamp;
+        this.title = title;
+        this.details = details;
+    }
+
+    public Source getSource() { return source; }
+    public String getId() { return id; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getTitle() { return title; }
+    public String getDetails() { return details; }
+}
@@ -0,0 +1,19 @@
+package org.example.models;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// A page of a patient's timeline. Sources that could not be read are left out and listed here, so the page
+// can say it is incomplete instead of failing as a whole.
+public class TimelinePage extends HistoryPage<TimelineEntry> {
+    private final Set<TimelineEntry.Source> unavailableSources;
+
+    public TimelinePage(List<TimelineEntry> items, String nextToken, boolean hasMore, Set<TimelineEntry.Source> unavailableSources) {
+        super(items, nextToken, hasMore);
+        this.unavailableSources = Collections.unmodifiableSet(unavailableSources);
+    }
+
+    public Set<TimelineEntry.Source> getUnavailableSources() { return unavailableSources; }
+    public boolean isComplete() { return unavailableSources.isEmpty(); }
+}
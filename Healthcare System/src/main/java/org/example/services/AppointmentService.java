@@ -1,65 +1,171 @@
 package org.example.services;
 
 import org.example.dao.AppointmentDAO;
+import org.example.dao.PageRequest;
+import org.example.dao.SortOrder;
 import org.example.models.Appointment;
+import org.example.models.AppointmentFilter;
+import org.example.models.AppointmentView;
+import org.example.models.Page;
+import org.example.utils.CacheManager;
 import org.example.utils.ValidationException;
 import org.example.utils.Validator;
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class AppointmentService {
     private static AppointmentService instance;
     private AppointmentDAO appointmentDAO;
+    // Display rows per day ("day:<date>") for the appointments screen
+    private CacheManager<Integer, AppointmentView> viewCache;
+    private StatisticsService statisticsService;
+    private static final int MAX_CACHED_BUCKETS = 64;
 
-    private AppointmentService(Connection conn) {
-        this.appointmentDAO = new AppointmentDAO(conn);
+    private AppointmentService(DataSource dataSource) {
+        this.appointmentDAO = new AppointmentDAO(dataSource);
+        // Only requested days are cached; days nobody looks at expire after 5 idle minutes. View rows carry
+        // patient and doctor names, so they are not kept longer than that either.
+        this.viewCache = CacheManager.<Integer, AppointmentView>builder()
+                .maximumLists(MAX_CACHED_BUCKETS)
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .expireAfterAccess(Duration.ofMinutes(5))
+                .name("appointment-views")
+                .build();
+        this.statisticsService = StatisticsService.getInstance(dataSource);
     }
 
-    public static AppointmentService getInstance(Connection conn) {
+    public static synchronized AppointmentService getInstance(DataSource dataSource) {
         if (instance == null) {
-            instance = new AppointmentService(conn);
+            instance = new AppointmentService(dataSource);
         }
         return instance;
     }
 
     public void scheduleAppointment(Appointment appointment) throws SQLException, ValidationException {
-        // Validate inputs
-        Validator.validatePositiveInteger(appointment.getPatientID(), "Patient ID");
-        Validator.validatePositiveInteger(appointment.getDoctorID(), "Doctor ID");
-        Validator.validateDate(appointment.getAppointmentDate(), "Appointment Date");
-        Validator.validateAppointmentStatus(appointment.getStatus());
+        validate(appointment);
 
-        appointmentDAO.create(appointment);
+        appointmentDAO.create(appointment, MedicalLogService.auditEntry(appointment.getPatientID(), "Appointment Scheduled",
+                "With doctor #" + appointment.getDoctorID() + " on " + appointment.getAppointmentDate() + " at " + appointment.getAppointmentTime()));
+        AuditOutboxRelay.wake();
+        invalidateBuckets(appointment);
+        statisticsService.onDataChanged();
     }
 
-    public Appointment getAppointment(Integer id) throws SQLException {
-        return appointmentDAO.findById(id);
+    // Validates the whole batch before touching the database, then inserts it in one transaction
+    public List<Integer> scheduleAppointments(List<Appointment> appointments) throws SQLException, ValidationException {
+        for (int i = 0; i < appointments.size(); i++) {
+            try {
+                validate(appointments.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("Appointment #" + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        List<Integer> ids = appointmentDAO.createBatch(appointments, appointment -> MedicalLogService.auditEntry(
+                appointment.getPatientID(), "Appointment Scheduled", "With doctor #" + appointment.getDoctorID()
+                        + " on " + appointment.getAppointmentDate() + " at " + appointment.getAppointmentTime()));
+        AuditOutboxRelay.wake();
+        for (Appointment appointment : appointments) {
+            invalidateBuckets(appointment);
+        }
+        statisticsService.onDataChanged();
+        return ids;
     }
 
     public List<Appointment> getAllAppointments() throws SQLException {
         return appointmentDAO.findAll();
     }
 
+    public Page<Appointment> getAppointmentPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return appointmentDAO.findPage(afterId, limit, sort);
+    }
+
+    public Page<AppointmentView> getAppointmentViews(AppointmentFilter filter, PageRequest page) throws SQLException {
+        LocalDate day = filter.getFromDate();
+        if (day == null || !day.equals(filter.getToDate())) {
+            return appointmentDAO.findViews(filter, page);
+        }
+
+        // A single-day listing is served from the day's cached bucket and paged in memory
+        List<AppointmentView> bucket = viewCache.getListOrLoad(dayKey(day), () -> appointmentDAO.findViewsByDate(day));
+        boolean descending = page.getSort() == SortOrder.DESC;
+        Integer afterId = page.getAfterId();
+        List<AppointmentView> rows = new ArrayList<>();
+        for (int i = 0; i < bucket.size() && rows.size() <= page.getLimit(); i++) {
+            AppointmentView view = bucket.get(descending ? bucket.size() - 1 - i : i);
+            if (afterId != null && (descending ? view.getAppointmentID() >= afterId : view.getAppointmentID() <= afterId)) {
+                continue;
+            }
+            if (filter.getStatus() == null || filter.getStatus().equals(view.getStatus())) {
+                rows.add(view);
+            }
+        }
+        return Page.of(rows, page.getLimit(), AppointmentView::getAppointmentID);
+    }
+
     public void updateAppointment(Appointment appointment) throws SQLException, ValidationException {
-        // Validate inputs
-        Validator.validatePositiveInteger(appointment.getPatientID(), "Patient ID");
-        Validator.validatePositiveInteger(appointment.getDoctorID(), "Doctor ID");
-        Validator.validateDate(appointment.getAppointmentDate(), "Appointment Date");
-        Validator.validateAppointmentStatus(appointment.getStatus());
+        validate(appointment);
 
-        appointmentDAO.update(appointment);
+        // The old row decides which day it has to leave (the date may have changed)
+        Appointment before = appointmentDAO.findById(appointment.getAppointmentID());
+        appointmentDAO.update(appointment, MedicalLogService.auditEntry(appointment.getPatientID(), "Appointment Updated",
+                "Appointment #" + appointment.getAppointmentID() + " with doctor #" + appointment.getDoctorID() + " on "
+                        + appointment.getAppointmentDate() + " at " + appointment.getAppointmentTime() + ", " + appointment.getStatus()));
+        AuditOutboxRelay.wake();
+        if (before != null) {
+            invalidateBuckets(before);
+        }
+        invalidateBuckets(appointment);
+        statisticsService.onDataChanged();
     }
 
     public void cancelAppointment(Integer id) throws SQLException {
         Appointment appointment = appointmentDAO.findById(id);
         if (appointment != null) {
             appointment.setStatus("Cancelled");
-            appointmentDAO.update(appointment);
+            appointmentDAO.update(appointment, MedicalLogService.auditEntry(appointment.getPatientID(), "Appointment Cancelled",
+                    "Appointment #" + id + " on " + appointment.getAppointmentDate()));
+            AuditOutboxRelay.wake();
+            invalidateBuckets(appointment);
+            statisticsService.onDataChanged();
         }
     }
 
     public void deleteAppointment(Integer id) throws SQLException {
-        appointmentDAO.delete(id);
+        Appointment before = appointmentDAO.findById(id);
+        appointmentDAO.delete(id, MedicalLogService.auditEntry(before != null ? before.getPatientID() : null,
+                "Appointment Deleted", "Deleted appointment #" + id));
+        AuditOutboxRelay.wake();
+        if (before != null) {
+            invalidateBuckets(before);
+        }
+        statisticsService.onDataChanged();
+    }
+
+    // Drops every cached day. Used for changes made by other clients: the notification carries only the
+    // appointment's id, not the day (or the old day) it moved from.
+    public void clearCache() {
+        viewCache.clear();
+    }
+
+    // Drops only the day this appointment belongs to; other days stay cached
+    private void invalidateBuckets(Appointment appointment) {
+        viewCache.removeList(dayKey(appointment.getAppointmentDate()));
+    }
+
+    private static String dayKey(LocalDate day) {
+        return "day:" + day;
+    }
+
+    private void validate(Appointment appointment) throws ValidationException {
+        // Validate inputs
+        Validator.validatePositiveInteger(appointment.getPatientID(), "Patient ID");
+        Validator.validatePositiveInteger(appointment.getDoctorID(), "Doctor ID");
+        Validator.validateDate(appointment.getAppointmentDate(), "Appointment Date");
+        Validator.validateAppointmentStatus(appointment.getStatus());
     }
 }
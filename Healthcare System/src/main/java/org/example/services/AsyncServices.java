@@ -0,0 +1,65 @@
+package org.example.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Async front for the blocking services. Every call gets its own virtual thread, so a slow JDBC or MongoDB
+// round trip only parks that thread; nothing runs on the JavaFX Application Thread.
+public final class AsyncServices {
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("service-", 0).factory());
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private AsyncServices() {
+    }
+
+    // e.g. AsyncServices.supply(() -> patientService.getPatientPage(null, 50, SortOrder.ASC))
+    public static <T> CompletableFuture<T> supply(Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    public static CompletableFuture<Void> run(Action action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // For javafx.concurrent.Task and other code that manages its own Runnable
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    // Gives in-flight calls a moment to finish before the pools underneath are closed
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(5, TimeUnit.SECONDS)) {
+                EXECUTOR.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            EXECUTOR.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
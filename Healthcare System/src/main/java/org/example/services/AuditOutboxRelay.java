@@ -0,0 +1,103 @@
+package org.example.services;
+
+import org.example.dao.AuditOutboxDAO;
+
+import javax.sql.DataSource;
+
+// Copies audit entries from the PostgreSQL outbox (AuditOutbox) to MongoDB. The services write an outbox row in
+// the same transaction as the change it describes; this thread ships the rows in batches and deletes them once
+// MongoDB has them, so every committed change gets its audit entry even if MongoDB was down at the time.
+public class AuditOutboxRelay {
+    private static AuditOutboxRelay instance;
+    private static final int BATCH_SIZE = 500;
+    // Other clients' rows are picked up by polling; this client's own commits wake the relay at once
+    private static final long POLL_INTERVAL_MS = 2_000;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+
+    private final AuditOutboxDAO outboxDAO;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private boolean woken;
+
+    private AuditOutboxRelay(DataSource dataSource) {
+        this.outboxDAO = new AuditOutboxDAO(dataSource);
+        this.thread = new Thread(this::run, "audit-outbox-relay");
+        this.thread.setDaemon(true);
+    }
+
+    public static synchronized void start(DataSource dataSource) {
+        if (instance == null) {
+            instance = new AuditOutboxRelay(dataSource);
+            instance.thread.start();
+        }
+    }
+
+    // Called after a commit that wrote outbox rows
+    static synchronized void wake() {
+        if (instance != null) {
+            synchronized (instance) {
+                instance.woken = true;
+                instance.notifyAll();
+            }
+        }
+    }
+
+    // Finishes the batch in flight; rows not shipped yet stay in the outbox for the next start
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.running = false;
+            synchronized (instance) {
+                instance.notifyAll();
+            }
+            try {
+                instance.thread.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            instance = null;
+        }
+    }
+
+    private void run() {
+        long retryDelay = POLL_INTERVAL_MS;
+        boolean outage = false;
+        while (running) {
+            try {
+                int relayed = outboxDAO.relay(BATCH_SIZE, logs -> MedicalLogService.getInstance().deliver(logs));
+                if (outage) {
+                    System.out.println("✓ Audit outbox relay recovered");
+                    outage = false;
+                }
+                retryDelay = POLL_INTERVAL_MS;
+                // A full batch means more are waiting
+                if (relayed < BATCH_SIZE) {
+                    pause(POLL_INTERVAL_MS, true);
+                }
+            } catch (Exception e) {
+                if (!outage) {
+                    System.err.println("✗ Audit outbox relay failed, entries stay queued in PostgreSQL: " + e.getMessage());
+                    outage = true;
+                }
+                // New commits do not cut the backoff short; they would only hit the same failure
+                pause(retryDelay, false);
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    // Returns after the interval, on shutdown, or (if wakeable) as soon as wake() is called
+    private synchronized void pause(long millis, boolean wakeable) {
+        long deadline = System.currentTimeMillis() + millis;
+        try {
+            long remaining = millis;
+            while (running && !(wakeable && woken) && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            running = false;
+        }
+        woken = false;
+    }
+}
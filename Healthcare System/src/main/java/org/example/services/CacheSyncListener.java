@@ -0,0 +1,146 @@
+package org.example.services;
+
+import org.example.config.DBConfig;
+import org.example.db.ChangeNotificationInitializer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Keeps this client's caches in step with writes made by every client, using PostgreSQL LISTEN/NOTIFY.
+// Runs on its own connection outside the pool, since it stays checked out for the life of the app.
+public class CacheSyncListener {
+    private static CacheSyncListener instance;
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+    // Beyond this many changed rows in one table per poll (e.g. a bulk import), the cache is dropped instead of patched
+    private static final int MAX_PATCHES_PER_TABLE = 100;
+
+    private final DataSource dataSource;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private CacheSyncListener(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.thread = new Thread(this::run, "cache-sync-listener");
+        this.thread.setDaemon(true);
+    }
+
+    public static synchronized void start(DataSource dataSource) {
+        if (instance == null) {
+            instance = new CacheSyncListener(dataSource);
+            instance.thread.start();
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.running = false;
+            instance.thread.interrupt();
+            instance = null;
+        }
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = new DBConfig().connect()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + ChangeNotificationInitializer.CHANNEL);
+                }
+                // Anything written while we were disconnected was missed, so start from empty caches
+                if (connectedBefore) {
+                    clearCaches();
+                }
+                connectedBefore = true;
+                System.out.println("✓ Listening for cache changes from other clients");
+
+                PGConnection pgConnection = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        apply(notifications);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("Cache sync connection lost, retrying in " + RECONNECT_DELAY_MS / 1000 + "s: " + e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void apply(PGNotification[] notifications) {
+        // table -> (id -> last operation); repeated changes to one row collapse into one patch
+        Map<String, Map<Integer, String>> changes = new LinkedHashMap<>();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split(":");
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                changes.computeIfAbsent(parts[0], table -> new LinkedHashMap<>()).put(Integer.parseInt(parts[2]), parts[1]);
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring malformed change notification: " + notification.getParameter());
+            }
+        }
+
+        for (Map.Entry<String, Map<Integer, String>> table : changes.entrySet()) {
+            switch (table.getKey()) {
+                case "patient" -> {
+                    PatientService service = PatientService.getInstance(dataSource);
+                    applyTo(table.getValue(), service::applyExternalChange, service::clearCache);
+                }
+                case "doctors" -> {
+                    DoctorService service = DoctorService.getInstance(dataSource);
+                    applyTo(table.getValue(), service::applyExternalChange, service::clearCache);
+                }
+                case "departments" -> {
+                    DepartmentService service = DepartmentService.getInstance(dataSource);
+                    applyTo(table.getValue(), service::applyExternalChange, service::clearCache);
+                }
+                // Day buckets are few and cheap to reload, so any change drops them all
+                case "appointments" -> AppointmentService.getInstance(dataSource).clearCache();
+                default -> { }
+            }
+        }
+        StatisticsService.getInstance(dataSource).onDataChanged();
+    }
+
+    private interface ChangeHandler {
+        void apply(String operation, Integer id) throws SQLException;
+    }
+
+    private void applyTo(Map<Integer, String> rows, ChangeHandler handler, Runnable clearCache) {
+        if (rows.size() > MAX_PATCHES_PER_TABLE) {
+            clearCache.run();
+            return;
+        }
+        try {
+            for (Map.Entry<Integer, String> row : rows.entrySet()) {
+                handler.apply(row.getValue(), row.getKey());
+            }
+        } catch (SQLException e) {
+            // Could not re-read a changed row, so stop trusting the cache
+            clearCache.run();
+        }
+    }
+
+    private void clearCaches() {
+        PatientService.getInstance(dataSource).clearCache();
+        DoctorService.getInstance(dataSource).clearCache();
+        DepartmentService.getInstance(dataSource).clearCache();
+        AppointmentService.getInstance(dataSource).clearCache();
+    }
+}
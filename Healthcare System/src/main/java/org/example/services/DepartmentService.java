@@ -1,28 +1,43 @@
 package org.example.services;
 
 import org.example.dao.DepartmentDAO;
+import org.example.dao.SortOrder;
+import org.example.models.Page;
 import org.example.models.Department;
 import org.example.utils.CacheManager;
+import org.example.utils.CacheStats;
 import org.example.utils.ValidationException;
 import org.example.utils.Validator;
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
 
 public class DepartmentService {
     private static DepartmentService instance;
     private DepartmentDAO departmentDAO;
     private CacheManager<Integer, Department> cache;
+    private StatisticsService statisticsService;
     private static final String ALL_DEPARTMENTS_KEY = "all_departments";
+    private static final int MAX_CACHED_DEPARTMENTS = 500;
 
-    private DepartmentService(Connection conn) {
-        this.departmentDAO = new DepartmentDAO(conn);
-        this.cache = new CacheManager<>();
+    private DepartmentService(DataSource dataSource) {
+        this.departmentDAO = new DepartmentDAO(dataSource);
+        this.cache = CacheManager.<Integer, Department>builder()
+                .maximumSize(MAX_CACHED_DEPARTMENTS)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .refreshAfterWrite(Duration.ofMinutes(25))
+                .name("departments")
+                .listElements(Department::getDepartmentID, Comparator.comparing(Department::getDepartmentID))
+                .build();
+        this.statisticsService = StatisticsService.getInstance(dataSource);
     }
 
-    public static DepartmentService getInstance(Connection conn) {
+    public static synchronized DepartmentService getInstance(DataSource dataSource) {
         if (instance == null) {
-            instance = new DepartmentService(conn);
+            instance = new DepartmentService(dataSource);
         }
         return instance;
     }
@@ -36,42 +51,35 @@ public class DepartmentService {
         Validator.validateNotEmpty(department.getName(), "Department Name");
 
         departmentDAO.create(department);
-        cache.invalidateListCaches();
+        cache.upsertInLists(department);
+        statisticsService.onDataChanged();
     }
 
     public Department getDepartment(Integer id) throws SQLException {
-        if (cache.containsKey(id)) {
-            return cache.get(id);
-        }
-        Department dept = departmentDAO.findById(id);
-        if (dept != null) {
-            cache.put(id, dept);
-        }
-        return dept;
+        return cache.getOrLoad(id, () -> departmentDAO.findById(id));
     }
 
     public List<Department> getAllDepartments() throws SQLException {
-        long startTime = System.nanoTime();
-        
-        List<Department> cached = cache.getList(ALL_DEPARTMENTS_KEY);
-        if (cached != null) {
-            long duration = (System.nanoTime() - startTime) / 1_000_000;
-            System.out.println("✓ Cache HIT - Departments loaded from cache (" + duration + "ms)");
-            return cached;
-        }
-        
-        List<Department> departments = departmentDAO.findAll();
-        cache.putList(ALL_DEPARTMENTS_KEY, departments);
-        
-        long duration = (System.nanoTime() - startTime) / 1_000_000;
-        System.out.println("✗ Cache MISS - Departments loaded from database (" + duration + "ms)");
-        return departments;
+        return cache.getListOrLoad(ALL_DEPARTMENTS_KEY, departmentDAO::findAll);
+    }
+
+    public Page<Department> getDepartmentPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return departmentDAO.findPage(afterId, limit, sort);
+    }
+
+    // Drops every cached entry, e.g. after another client changed departments while we were disconnected
+    public void clearCache() {
+        cache.clear();
     }
 
     public String getCacheStatus() {
         return cache.getCacheStatus();
     }
 
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
     public void updateDepartment(Department department) throws SQLException, ValidationException {
         // Sanitize inputs
         department.setName(Validator.sanitizeString(department.getName()));
@@ -80,14 +88,34 @@ public class DepartmentService {
         // Validate inputs
         Validator.validateNotEmpty(department.getName(), "Department Name");
 
-        departmentDAO.update(department);
+        boolean updated = departmentDAO.update(department);
         cache.remove(department.getDepartmentID());
-        cache.invalidateListCaches();
+        if (updated) {
+            cache.upsertInLists(department);
+        } else {
+            cache.removeFromLists(department.getDepartmentID());
+        }
+        statisticsService.onDataChanged();
     }
 
     public void deleteDepartment(Integer id) throws SQLException {
         departmentDAO.delete(id);
         cache.remove(id);
-        cache.invalidateListCaches();
+        cache.removeFromLists(id);
+        statisticsService.onDataChanged();
+    }
+
+    // Called by CacheSyncListener for every committed change to a department row, whichever client made it
+    void applyExternalChange(String operation, Integer id) throws SQLException {
+        cache.remove(id);
+        Department fresh = null;
+        if (!"DELETE".equals(operation) && cache.listCacheSize() > 0) {
+            fresh = departmentDAO.findById(id);
+        }
+        if (fresh != null) {
+            cache.upsertInLists(fresh);
+        } else {
+            cache.removeFromLists(id);
+        }
     }
 }
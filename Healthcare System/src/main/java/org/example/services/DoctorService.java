@@ -1,85 +1,202 @@
 package org.example.services;
 
 import org.example.dao.DoctorDAO;
+import org.example.dao.SortOrder;
+import org.example.models.Page;
 import org.example.models.Doctor;
 import org.example.utils.CacheManager;
+import org.example.utils.CacheStats;
+import org.example.utils.SearchIndex;
 import org.example.utils.ValidationException;
 import org.example.utils.Validator;
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 public class DoctorService {
     private static DoctorService instance;
     private DoctorDAO doctorDAO;
     private CacheManager<Integer, Doctor> cache;
+    private StatisticsService statisticsService;
+    // Type-ahead index over the cached directory; built on first use, then kept current by writes
+    private volatile SearchIndex<Doctor> searchIndex;
     private static final String ALL_DOCTORS_KEY = "all_doctors";
+    private static final int MAX_CACHED_DOCTORS = 2_000;
+    // Room for the full doctor list, which backs the search index and the pickers
+    private static final int MAX_CACHED_DOCTOR_LIST_ELEMENTS = 10_000;
 
-    private DoctorService(Connection conn) {
-        this.doctorDAO = new DoctorDAO(conn);
-        this.cache = new CacheManager<>();
+    private DoctorService(DataSource dataSource) {
+        this.doctorDAO = new DoctorDAO(dataSource);
+        this.cache = CacheManager.<Integer, Doctor>builder()
+                .maximumSize(MAX_CACHED_DOCTORS)
+                .maximumListElements(MAX_CACHED_DOCTOR_LIST_ELEMENTS)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .refreshAfterWrite(Duration.ofMinutes(25))
+                .name("doctors")
+                .listElements(Doctor::getDoctorID, Comparator.comparing(Doctor::getDoctorID))
+                .build();
+        this.statisticsService = StatisticsService.getInstance(dataSource);
     }
 
-    public static DoctorService getInstance(Connection conn) {
+    public static synchronized DoctorService getInstance(DataSource dataSource) {
         if (instance == null) {
-            instance = new DoctorService(conn);
+            instance = new DoctorService(dataSource);
         }
         return instance;
     }
 
     public void addDoctor(Doctor doctor) throws SQLException, ValidationException {
-        // Sanitize inputs
-        doctor.setFirstName(Validator.sanitizeString(doctor.getFirstName()));
-        doctor.setLastName(Validator.sanitizeString(doctor.getLastName()));
-        doctor.setEmail(Validator.sanitizeString(doctor.getEmail()));
-        doctor.setPhone(Validator.sanitizeString(doctor.getPhone()));
+        sanitizeAndValidate(doctor);
 
-        // Validate inputs
-        Validator.validateName(doctor.getFirstName(), "First Name");
-        Validator.validateName(doctor.getLastName(), "Last Name");
-        Validator.validateEmail(doctor.getEmail());
-        Validator.validatePhone(doctor.getPhone());
-        Validator.validatePositiveInteger(doctor.getDepartmentID(), "Department ID");
-        Validator.validateDate(doctor.getHireDate(), "Hire Date");
+        doctorDAO.create(doctor, MedicalLogService.auditEntry(null, "Doctor Added",
+                "New doctor: " + doctor.getFirstName() + " " + doctor.getLastName()));
+        AuditOutboxRelay.wake();
+        cache.upsertInLists(doctor);
+        indexPut(doctor);
+        statisticsService.onDataChanged();
+    }
+
+    // Validates the whole batch before touching the database, then inserts it in one transaction
+    public List<Integer> addDoctors(List<Doctor> doctors) throws SQLException, ValidationException {
+        for (int i = 0; i < doctors.size(); i++) {
+            try {
+                sanitizeAndValidate(doctors.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("Doctor #" + (i + 1) + ": " + e.getMessage());
+            }
+        }
 
-        doctorDAO.create(doctor);
-        cache.invalidateListCaches();
+        List<Integer> ids = doctorDAO.createBatch(doctors, doctor -> MedicalLogService.auditEntry(null, "Doctor Added",
+                "New doctor: " + doctor.getFirstName() + " " + doctor.getLastName()));
+        AuditOutboxRelay.wake();
+        cache.upsertInLists(doctors);
+        indexPutAll(doctors);
+        statisticsService.onDataChanged();
+        return ids;
     }
 
     public Doctor getDoctor(Integer id) throws SQLException {
-        if (cache.containsKey(id)) {
-            return cache.get(id);
+        return cache.getOrLoad(id, () -> doctorDAO.findById(id));
+    }
+
+    public List<Doctor> getAllDoctors() throws SQLException {
+        return cache.getListOrLoad(ALL_DOCTORS_KEY, doctorDAO::findAll);
+    }
+
+    // As-you-type lookup over names, email, phone and ID; answered from memory without scanning the directory
+    public List<Doctor> typeAheadDoctors(String query, int limit) throws SQLException {
+        if (query == null || query.trim().isEmpty()) {
+            return List.of();
         }
-        Doctor doctor = doctorDAO.findById(id);
-        if (doctor != null) {
-            cache.put(id, doctor);
+        return searchIndex().search(query, limit);
+    }
+
+    private synchronized SearchIndex<Doctor> searchIndex() throws SQLException {
+        if (searchIndex == null) {
+            SearchIndex<Doctor> index = new SearchIndex<>(Doctor::getDoctorID, DoctorService::searchFields);
+            index.putAll(getAllDoctors());
+            searchIndex = index;
         }
-        return doctor;
+        return searchIndex;
     }
 
-    public List<Doctor> getAllDoctors() throws SQLException {
-        long startTime = System.nanoTime();
-        
-        List<Doctor> cached = cache.getList(ALL_DOCTORS_KEY);
-        if (cached != null) {
-            long duration = (System.nanoTime() - startTime) / 1_000_000;
-            System.out.println("✓ Cache HIT - Doctors loaded from cache (" + duration + "ms)");
-            return cached;
+    // Index updates are synchronized with the build, so a write during the first build is not lost
+    private synchronized void indexPut(Doctor doctor) {
+        if (searchIndex != null) {
+            searchIndex.put(doctor);
         }
-        
-        List<Doctor> doctors = doctorDAO.findAll();
-        cache.putList(ALL_DOCTORS_KEY, doctors);
-        
-        long duration = (System.nanoTime() - startTime) / 1_000_000;
-        System.out.println("✗ Cache MISS - Doctors loaded from database (" + duration + "ms)");
-        return doctors;
+    }
+
+    private synchronized void indexPutAll(List<Doctor> doctors) {
+        if (searchIndex != null) {
+            searchIndex.putAll(doctors);
+        }
+    }
+
+    private synchronized void indexRemove(Integer id) {
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+    }
+
+    private static List<String> searchFields(Doctor d) {
+        return Arrays.asList(d.getFirstName(), d.getLastName(), d.getEmail(), d.getPhone(), String.valueOf(d.getDoctorID()));
+    }
+
+    public Page<Doctor> getDoctorPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return doctorDAO.findPage(afterId, limit, sort);
+    }
+
+    public List<Doctor> searchDoctors(String query, int limit) throws SQLException {
+        if (query == null || query.trim().isEmpty()) {
+            return List.of();
+        }
+        return doctorDAO.search(query, limit);
     }
 
     public String getCacheStatus() {
         return cache.getCacheStatus();
     }
 
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    // Drops every cached entry, e.g. after a bulk import rewrote many rows
+    public void clearCache() {
+        cache.clear();
+        synchronized (this) {
+            searchIndex = null;
+        }
+    }
+
     public void updateDoctor(Doctor doctor) throws SQLException, ValidationException {
+        sanitizeAndValidate(doctor);
+
+        boolean updated = doctorDAO.update(doctor, MedicalLogService.auditEntry(null, "Doctor Updated",
+                "Updated doctor: " + doctor.getFirstName() + " " + doctor.getLastName()));
+        AuditOutboxRelay.wake();
+        cache.remove(doctor.getDoctorID());
+        if (updated) {
+            cache.upsertInLists(doctor);
+            indexPut(doctor);
+        } else {
+            cache.removeFromLists(doctor.getDoctorID());
+            indexRemove(doctor.getDoctorID());
+        }
+        statisticsService.onDataChanged();
+    }
+
+    public void deleteDoctor(Integer id) throws SQLException {
+        doctorDAO.delete(id, MedicalLogService.auditEntry(null, "Doctor Deleted", "Deleted doctor #" + id));
+        AuditOutboxRelay.wake();
+        cache.remove(id);
+        cache.removeFromLists(id);
+        indexRemove(id);
+        statisticsService.onDataChanged();
+    }
+
+    // Called by CacheSyncListener for every committed change to a doctor row, whichever client made it
+    void applyExternalChange(String operation, Integer id) throws SQLException {
+        cache.remove(id);
+        Doctor fresh = null;
+        if (!"DELETE".equals(operation) && (cache.listCacheSize() > 0 || searchIndex != null)) {
+            fresh = doctorDAO.findById(id);
+        }
+        if (fresh != null) {
+            cache.upsertInLists(fresh);
+            indexPut(fresh);
+        } else {
+            cache.removeFromLists(id);
+            indexRemove(id);
+        }
+    }
+
+    static void sanitizeAndValidate(Doctor doctor) throws ValidationException {
         // Sanitize inputs
         doctor.setFirstName(Validator.sanitizeString(doctor.getFirstName()));
         doctor.setLastName(Validator.sanitizeString(doctor.getLastName()));
@@ -93,15 +210,5 @@ public class DoctorService {
         Validator.validatePhone(doctor.getPhone());
         Validator.validatePositiveInteger(doctor.getDepartmentID(), "Department ID");
         Validator.validateDate(doctor.getHireDate(), "Hire Date");
-
-        doctorDAO.update(doctor);
-        cache.remove(doctor.getDoctorID());
-        cache.invalidateListCaches();
-    }
-
-    public void deleteDoctor(Integer id) throws SQLException {
-        doctorDAO.delete(id);
-        cache.remove(id);
-        cache.invalidateListCaches();
     }
 }
@@ -0,0 +1,7 @@
+package org.example.services;
+
+@FunctionalInterface
+public interface ImportProgressListener {
+    // fraction is in [0, 1] and based on bytes of the source file consumed so far
+    void onProgress(String stage, long rowsRead, long rowsRejected, double fraction);
+}
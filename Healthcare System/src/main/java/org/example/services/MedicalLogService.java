@@ -2,53 +2,85 @@ package org.example.services;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.example.config.MongoDBConfig;
+import org.example.models.HistoryPage;
 import org.example.models.MedicalLog;
+import org.example.models.Page;
+import org.example.utils.SessionManager;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-
-import static com.mongodb.client.model.Filters.eq;
+import java.util.stream.Stream;
 
 public class MedicalLogService {
     private static MedicalLogService instance;
-    private MongoCollection<Document> collection;
+    private static final String COLLECTION = "medical_logs";
+
+    // Typed collection: entries are written and read through MedicalLogCodec (see MongoDBConfig)
+    private MongoCollection<MedicalLog> collection;
+    // Entries land here first and are shipped to MongoDB in batches; null if the spool could not be opened
+    private final MongoSpool<MedicalLog> spool;
 
     private MedicalLogService() {
         MongoDatabase database = MongoDBConfig.getDatabase();
-        this.collection = database.getCollection("medical_logs");
+        this.collection = database.getCollection(COLLECTION, MedicalLog.class);
+        MongoSchema.prepare(COLLECTION, collection);
+        this.spool = MongoSpool.open(COLLECTION, MongoDBConfig.getSpoolDirectory().resolve(COLLECTION), collection);
     }
 
-    public static MedicalLogService getInstance() {
+    public static synchronized MedicalLogService getInstance() {
         if (instance == null) {
             instance = new MedicalLogService();
         }
         return instance;
     }
 
+    // Ships what MongoDB accepts in time; anything else stays spooled for the next start
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            if (instance.spool != null) {
+                instance.spool.close();
+            }
+            instance = null;
+        }
+    }
+
+    // Returns once the entry is in the local spool, whether or not MongoDB is reachable
     public void addLog(MedicalLog log) {
-        Document doc = new Document("patientID", log.getPatientID())
-                .append("action", log.getAction())
-                .append("details", log.getDetails())
-                .append("performedBy", log.getPerformedBy())
-                .append("timestamp", log.getTimestamp().toString());
-        collection.insertOne(doc);
+        // The id is assigned here, so a replayed entry is recognised as a duplicate instead of stored twice
+        log.setId(new ObjectId().toHexString());
+        if (spool != null) {
+            spool.append(log);
+        } else {
+            collection.insertOne(log);
+        }
+    }
+
+    // A new audit entry by the signed-in user, with its id already assigned so redelivery is harmless
+    public static MedicalLog auditEntry(Integer patientID, String action, String details) {
+        MedicalLog log = new MedicalLog(patientID, action, details, SessionManager.getCurrentUsername());
+        log.setId(new ObjectId().toHexString());
+        return log;
+    }
+
+    // Writes straight to MongoDB, for callers that keep the entries durable themselves until this returns
+    void deliver(List<MedicalLog> logs) {
+        MongoSpool.insert(COLLECTION, collection, logs);
     }
 
+    // Oldest first, including entries still waiting in the spool
     public List<MedicalLog> getLogsByPatient(Integer patientID) {
-        List<MedicalLog> logs = new ArrayList<>();
-        collection.find(eq("patientID", patientID)).forEach(doc -> {
-            MedicalLog log = new MedicalLog();
-            log.setId(doc.getObjectId("_id").toString());
-            log.setPatientID(doc.getInteger("patientID"));
-            log.setAction(doc.getString("action"));
-            log.setDetails(doc.getString("details"));
-            log.setPerformedBy(doc.getString("performedBy"));
-            log.setTimestamp(LocalDateTime.parse(doc.getString("timestamp")));
-            logs.add(log);
-        });
-        return logs;
+        return MongoSchema.history(collection, spool, patientID);
+    }
+
+    // Newest first; pass the previous page's token to continue. With fields, only those are loaded
+    // (plus the id, patient and timestamp), e.g. getLogPage(id, null, 50, "action", "performedBy").
+    public HistoryPage<MedicalLog> getLogPage(Integer patientID, String pageToken, int limit, String... fields) {
+        return MongoSchema.historyPage(collection, spool, patientID, pageToken, Page.clampLimit(limit), fields);
+    }
+
+    // Newest first, read from MongoDB in batches as the stream is consumed; use in try-with-resources
+    public Stream<MedicalLog> streamLogsByPatient(Integer patientID, String... fields) {
+        return MongoSchema.historyStream(collection, spool, patientID, fields);
     }
 }
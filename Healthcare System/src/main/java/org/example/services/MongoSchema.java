@@ -0,0 +1,304 @@
+package org.example.services;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.example.codecs.BsonFields;
+import org.example.models.HistoryEntry;
+import org.example.models.HistoryPage;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Index setup, timestamp handling and paged reads shared by the per-patient history collections
+// (medical_logs, patient_notes). Timestamps are stored as BSON dates; documents written before that hold
+// LocalDateTime strings and are converted in the background.
+final class MongoSchema {
+    // _id breaks ties between entries written in the same millisecond, so pages can resume exactly
+    private static final String PATIENT_HISTORY_INDEX = "patientID_1_timestamp_1__id_1";
+    // Created by earlier versions; a prefix of the index above and dropped once that exists
+    private static final String OLD_PATIENT_HISTORY_INDEX = "patientID_1_timestamp_1";
+    private static final int MIGRATION_BATCH_SIZE = 1_000;
+    private static final int STREAM_BATCH_SIZE = 200;
+
+    // Newest first. Read backwards along the history index, so no sort happens in memory.
+    private static final Bson NEWEST_FIRST = Sorts.descending("timestamp", "_id");
+    // The same order in memory, for merging spooled entries (ObjectId hex strings sort like the ids)
+    private static final Comparator<HistoryEntry> NEWEST_FIRST_ORDER =
+            Comparator.comparing(HistoryEntry::getTimestamp).thenComparing(HistoryEntry::getId).reversed();
+
+    private MongoSchema() {
+    }
+
+    // Creates the history index (a no-op when it exists) and starts converting old string timestamps
+    static void prepare(String name, MongoCollection<?> typed) {
+        MongoCollection<Document> collection = typed.withDocumentClass(Document.class);
+        Thread thread = new Thread(() -> {
+            try {
+                collection.createIndex(Indexes.ascending("patientID", "timestamp", "_id"),
+                        new IndexOptions().name(PATIENT_HISTORY_INDEX));
+                for (Document index : collection.listIndexes()) {
+                    if (OLD_PATIENT_HISTORY_INDEX.equals(index.getString("name"))) {
+                        collection.dropIndex(OLD_PATIENT_HISTORY_INDEX);
+                    }
+                }
+                migrateTimestamps(name, collection);
+            } catch (MongoException e) {
+                System.err.println("✗ Failed to prepare " + name + " collection: " + e.getMessage());
+            }
+        }, name + "-schema");
+        // Safe to cut short at exit: each batch only touches documents still holding a string
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // The patient's whole history, oldest first, including entries still in the spool
+    static <T extends HistoryEntry> List<T> history(MongoCollection<T> collection, MongoSpool<T> spool, Integer patientID) {
+        List<T> entries = collection.find(Filters.eq("patientID", patientID))
+                .sort(Sorts.ascending("timestamp", "_id"))
+                .into(new ArrayList<>());
+        if (spool != null) {
+            // One may have been shipped since the query, hence the id check
+            Set<String> seen = new HashSet<>();
+            entries.forEach(entry -> seen.add(entry.getId()));
+            for (T entry : spool.pending(patientID)) {
+                if (seen.add(entry.getId())) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    // A page of the patient's entries after the token (or the newest, without one). Entries still in the spool
+    // are merged in where they fall, so a note shows up on its page before it is shipped.
+    static <T extends HistoryEntry> HistoryPage<T> historyPage(MongoCollection<T> collection, MongoSpool<T> spool,
+                                                               Integer patientID, String token, int limit, String... fields) {
+        Position after = token == null ? null : Position.parse(token);
+        Bson patient = Filters.eq("patientID", patientID);
+        Bson projection = projection(fields);
+
+        // MongoDB sorts every date above every string, so entries with a date come first...
+        List<T> rows = new ArrayList<>();
+        if (after == null || !after.legacy()) {
+            Bson filter = after == null
+                    ? Filters.and(patient, Filters.type("timestamp", BsonType.DATE_TIME))
+                    : Filters.and(patient, olderThan(after));
+            collection.find(filter).projection(projection).sort(NEWEST_FIRST).limit(limit + 1).into(rows);
+            if (spool != null) {
+                List<T> pending = spool.pending(patientID);
+                if (after != null) {
+                    pending.removeIf(entry -> !after.isBefore(entry));
+                }
+                mergePending(rows, pending, limit + 1);
+            }
+        }
+        // ...followed by those the migration has not converted yet
+        int legacyFrom = rows.size();
+        if (rows.size() <= limit) {
+            Bson filter = after != null && after.legacy()
+                    ? Filters.and(patient, olderThan(after))
+                    : Filters.and(patient, Filters.type("timestamp", BsonType.STRING));
+            collection.find(filter).projection(projection).sort(NEWEST_FIRST).limit(limit + 1 - rows.size()).into(rows);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextToken = items.isEmpty() ? null : Position.tokenOf(items.get(items.size() - 1), items.size() > legacyFrom);
+        return new HistoryPage<>(items, nextToken, hasMore);
+    }
+
+    // A token for historyPage that starts just after (timestamp, id), for callers positioning the history
+    // against something other than one of its own entries (the patient timeline)
+    static String tokenAt(LocalDateTime timestamp, ObjectId id) {
+        return id.toHexString() + ":d" + BsonFields.toDate(timestamp).getTime();
+    }
+
+    // All of the patient's entries, newest first, fetched from MongoDB a batch at a time as the stream is consumed.
+    // Close the stream (try-with-resources) to release the cursor when stopping early.
+    static <T extends HistoryEntry> Stream<T> historyStream(MongoCollection<T> collection, MongoSpool<T> spool,
+                                                            Integer patientID, String... fields) {
+        List<T> pending = spool == null ? new ArrayList<>() : spool.pending(patientID);
+        pending.sort(NEWEST_FIRST_ORDER);
+        Set<String> pendingIds = new HashSet<>();
+        pending.forEach(entry -> pendingIds.add(entry.getId()));
+
+        MongoCursor<T> cursor = collection.find(Filters.eq("patientID", patientID))
+                .projection(projection(fields))
+                .sort(NEWEST_FIRST)
+                .batchSize(STREAM_BATCH_SIZE)
+                .iterator();
+        // Unshipped entries are not always the newest (the outbox relay writes straight to MongoDB, and an entry
+        // may be spooled with an older timestamp), so the two are merged rather than put one after the other
+        Iterator<T> merged = new Iterator<>() {
+            private int index;
+            private T shipped;
+
+            @Override
+            public boolean hasNext() {
+                return index < pending.size() || shippedHead() != null;
+            }
+
+            @Override
+            public T next() {
+                T head = shippedHead();
+                if (index < pending.size() && (head == null || NEWEST_FIRST_ORDER.compare(pending.get(index), head) <= 0)) {
+                    return pending.get(index++);
+                }
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                shipped = null;
+                return head;
+            }
+
+            // The next entry from MongoDB, skipping those shipped since the spool was read
+            private T shippedHead() {
+                while (shipped == null && cursor.hasNext()) {
+                    T entry = cursor.next();
+                    if (!pendingIds.contains(entry.getId())) {
+                        shipped = entry;
+                    }
+                }
+                return shipped;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    private static <T extends HistoryEntry> void mergePending(List<T> rows, List<T> pending, int max) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<String> seen = new HashSet<>();
+        rows.forEach(row -> seen.add(row.getId()));
+        for (T entry : pending) {
+            if (seen.add(entry.getId())) {
+                rows.add(entry);
+            }
+        }
+        rows.sort(NEWEST_FIRST_ORDER);
+        if (rows.size() > max) {
+            rows.subList(max, rows.size()).clear();
+        }
+    }
+
+    // Where a page ended: the sort key of its last entry. Entries not yet migrated are positioned by their
+    // string timestamp, because strings and dates sort separately in MongoDB.
+    private record Position(ObjectId id, LocalDateTime timestamp, boolean legacy) {
+        // Opaque to callers: 24 hex digits of ObjectId, ':', then 'd' + epoch millis or 's' + the string
+        static String tokenOf(HistoryEntry entry, boolean legacy) {
+            String key = legacy ? "s" + entry.getTimestamp() : "d" + BsonFields.toDate(entry.getTimestamp()).getTime();
+            return entry.getId() + ":" + key;
+        }
+
+        static Position parse(String token) {
+            if (token.length() < 27 || token.charAt(24) != ':' || !ObjectId.isValid(token.substring(0, 24))) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+            ObjectId id = new ObjectId(token.substring(0, 24));
+            String key = token.substring(26);
+            try {
+                return switch (token.charAt(25)) {
+                    case 'd' -> new Position(id, BsonFields.fromDate(new Date(Long.parseLong(key))), false);
+                    // Old timestamps were written with LocalDateTime.toString(), which round-trips exactly
+                    case 's' -> new Position(id, LocalDateTime.parse(key), true);
+                    default -> throw new IllegalArgumentException("Invalid page token: " + token);
+                };
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+        }
+
+        // The timestamp as MongoDB holds it, so the range below stays within one BSON type
+        Object value() {
+            return legacy ? timestamp.toString() : BsonFields.toDate(timestamp);
+        }
+
+        // True when the entry sorts after this position in NEWEST_FIRST order
+        boolean isBefore(HistoryEntry entry) {
+            int byTime = entry.getTimestamp().compareTo(timestamp);
+            return byTime < 0 || (byTime == 0 && entry.getId().compareTo(id.toHexString()) < 0);
+        }
+    }
+
+    private static Bson olderThan(Position after) {
+        return Filters.or(Filters.lt("timestamp", after.value()),
+                Filters.and(Filters.eq("timestamp", after.value()), Filters.lt("_id", after.id())));
+    }
+
+    // No fields means whole documents; otherwise the sort key is always included so tokens can be built
+    private static Bson projection(String... fields) {
+        if (fields.length == 0) {
+            return null;
+        }
+        List<String> include = new ArrayList<>(List.of(fields));
+        include.add("patientID");
+        include.add("timestamp");
+        return Projections.include(include);
+    }
+
+    private static void migrateTimestamps(String name, MongoCollection<Document> collection) {
+        long converted = 0;
+        ObjectId after = null;
+        while (true) {
+            // Walk _id order so each batch resumes where the last one stopped instead of rescanning
+            List<Document> batch = collection
+                    .find(after == null
+                            ? Filters.type("timestamp", BsonType.STRING)
+                            : Filters.and(Filters.type("timestamp", BsonType.STRING), Filters.gt("_id", after)))
+                    .projection(Projections.include("timestamp"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(MIGRATION_BATCH_SIZE)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<UpdateOneModel<Document>> updates = new ArrayList<>(batch.size());
+            for (Document doc : batch) {
+                try {
+                    Date date = BsonFields.toDate(LocalDateTime.parse(doc.getString("timestamp")));
+                    // Matching on the type too, so a concurrent rewrite of the document is left alone
+                    updates.add(new UpdateOneModel<>(
+                            Filters.and(Filters.eq("_id", doc.get("_id")), Filters.type("timestamp", BsonType.STRING)),
+                            Updates.set("timestamp", date)));
+                } catch (DateTimeParseException e) {
+                    System.err.println("✗ Unreadable timestamp in " + name + " " + doc.get("_id") + ": " + doc.getString("timestamp"));
+                }
+            }
+            if (!updates.isEmpty()) {
+                converted += collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)).getModifiedCount();
+            }
+            after = batch.get(batch.size() - 1).getObjectId("_id");
+        }
+        if (converted > 0) {
+            System.out.println("✓ Converted " + converted + " " + name + " timestamps to dates");
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package org.example.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+import org.example.config.MongoDBConfig;
+import org.example.models.HistoryEntry;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+// Local append-only spool in front of a MongoDB collection. Writes go to memory-mapped segment files and return
+// at once; a background shipper replays them into MongoDB in order, batch by batch, and records how far it got
+// in a checkpoint file. Entries carry their own _id, so a batch replayed after a crash or a timeout only
+// produces duplicate-key errors for what already arrived. Nothing is lost while MongoDB is slow or down.
+class MongoSpool<T extends HistoryEntry> {
+    // Segment layout: records of [int length][int crc32][BSON document], a zero length marks the end of data
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long BATCH_DELAY_MS = 200;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private record Batch<T>(List<T> documents, long segment, int offset) {}
+
+    private final String name;
+    private final Path directory;
+    private final MongoCollection<T> collection;
+    // Entries are stored in the same BSON the collection writes, via its model codec
+    private final Codec<T> codec;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private long writeSegment;
+    private int writeOffset;
+    private long readSegment;
+    private int readOffset;
+    private boolean dirty;
+    // What lies between the checkpoint and the end of the spool, in spool order and by patient, so reads of
+    // unshipped entries never go back to the segments
+    private final ArrayDeque<T> unshipped = new ArrayDeque<>();
+    private final Map<Integer, ArrayDeque<T>> unshippedByPatient = new HashMap<>();
+    private final Thread shipper;
+    private volatile boolean running = true;
+
+    private MongoSpool(String name, Path directory, MongoCollection<T> collection) throws IOException {
+        this.name = name;
+        this.directory = directory;
+        this.collection = collection;
+        this.codec = collection.getCodecRegistry().get(collection.getDocumentClass());
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve("spool.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already held within this JVM
+            acquired = null;
+        }
+        this.lock = acquired;
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("spool " + directory + " is in use by another instance");
+        }
+        recover();
+        this.shipper = new Thread(this::ship, name + "-shipper");
+        this.shipper.setDaemon(true);
+        this.shipper.start();
+    }
+
+    // Returns null when the spool cannot be used (e.g. unwritable directory); callers then write to MongoDB directly
+    static <T extends HistoryEntry> MongoSpool<T> open(String name, Path directory, MongoCollection<T> collection) {
+        try {
+            return new MongoSpool<>(name, directory, collection);
+        } catch (IOException e) {
+            System.err.println("✗ Local spool for " + name + " unavailable, writing to MongoDB directly: " + e.getMessage());
+            return null;
+        }
+    }
+
+    synchronized void append(T entry) {
+        byte[] payload = encode(entry);
+        if (payload.length > SEGMENT_SIZE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Entry too large for the spool: " + payload.length + " bytes");
+        }
+        if (writeOffset + HEADER_SIZE + payload.length > SEGMENT_SIZE) {
+            roll();
+        }
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        buffer.put(writeOffset + HEADER_SIZE, payload);
+        buffer.putInt(writeOffset + 4, crc(payload));
+        // The length goes in last: a record only exists for the reader once it is complete
+        buffer.putInt(writeOffset, payload.length);
+        writeOffset += HEADER_SIZE + payload.length;
+        dirty = true;
+        index(entry);
+        notifyAll();
+    }
+
+    // The patient's entries written locally but not yet confirmed by MongoDB, oldest first, so readers can
+    // show their own writes
+    synchronized List<T> pending(Integer patientID) {
+        ArrayDeque<T> entries = unshippedByPatient.get(patientID);
+        return entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+    }
+
+    // Ships what MongoDB will take within the timeout; the rest stays on disk for the next start
+    void close() {
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        boolean interrupted = false;
+        try {
+            shipper.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (shipper.isAlive()) {
+            // Still inside an insert: cut it short (the driver gives up on interrupt) and let the shipper wind down,
+            // so it cannot commit a checkpoint after the lock has gone to the next instance
+            shipper.interrupt();
+            try {
+                shipper.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (MappedByteBuffer buffer : segments.values()) {
+                buffer.force();
+            }
+            int left = unshipped.size();
+            if (left > 0) {
+                System.out.println("✓ " + left + " " + name + " entries kept in the local spool until the next start");
+            }
+        }
+        if (shipper.isAlive()) {
+            // The lock goes away with the process instead; the entries are on disk either way
+            System.err.println("✗ " + name + " shipper did not stop, keeping the spool lock until exit");
+            return;
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("✗ Failed to release spool lock: " + e.getMessage());
+        }
+    }
+
+    private void ship() {
+        long retryDelay = BATCH_DELAY_MS;
+        boolean outage = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Batch<T> batch;
+                synchronized (this) {
+                    forceWrites();
+                    batch = read(MAX_BATCH_SIZE);
+                    if (batch.segment() == readSegment && batch.offset() == readOffset) {
+                        if (!running) {
+                            return;
+                        }
+                        waitQuietly(BATCH_DELAY_MS);
+                        continue;
+                    }
+                }
+
+                // A batch made up only of quarantined records just moves the checkpoint past them
+                if (!batch.documents().isEmpty()) {
+                    insert(name, collection, batch.documents());
+                }
+                commit(batch);
+                if (outage) {
+                    System.out.println("✓ MongoDB reachable again, shipping spooled " + name + " entries");
+                    outage = false;
+                }
+                retryDelay = BATCH_DELAY_MS;
+                // Give the next batch time to fill up instead of shipping entries one by one
+                if (batch.documents().size() < MAX_BATCH_SIZE && running) {
+                    Thread.sleep(BATCH_DELAY_MS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Anything else is retried too: the shipper must outlive any one failure, or nothing ships until a restart
+                if (!running) {
+                    // Shutting down while MongoDB is unreachable; the entries are safe on disk
+                    return;
+                }
+                if (!outage) {
+                    System.err.println("✗ Cannot ship " + name + " entries, keeping them in the local spool: " + e.getMessage());
+                    outage = true;
+                }
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    // Also used by writers that keep entries durable elsewhere (the audit outbox relay)
+    static <T> void insert(String name, MongoCollection<T> collection, List<T> documents) {
+        try {
+            // Unordered, so one rejected entry does not hold back the rest of the batch
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // Duplicate ids are entries an earlier attempt already delivered; anything else cannot succeed on retry,
+            // so those entries are set aside before the caller lets go of its copy
+            List<BulkWriteError> rejected = e.getWriteErrors().stream().filter(error -> error.getCode() != DUPLICATE_KEY).toList();
+            if (!rejected.isEmpty()) {
+                Path file = deadLetter(name, collection, documents, rejected);
+                System.err.println("✗ " + rejected.size() + " " + name + " entries rejected by MongoDB, saved to " + file
+                        + ": " + rejected.get(0).getMessage());
+            }
+        }
+    }
+
+    // Appends one JSON line per rejected entry (the error and the entry in its collection encoding) to
+    // dead-letter.jsonl in the collection's spool directory. Throws if that fails, so the batch is kept and retried.
+    private static synchronized <T> Path deadLetter(String name, MongoCollection<T> collection, List<T> documents,
+                                                    List<BulkWriteError> rejected) {
+        Codec<T> codec = collection.getCodecRegistry().get(collection.getDocumentClass());
+        JsonWriterSettings settings = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+        StringBuilder lines = new StringBuilder();
+        for (BulkWriteError error : rejected) {
+            StringWriter line = new StringWriter();
+            try (JsonWriter writer = new JsonWriter(line, settings)) {
+                writer.writeStartDocument();
+                writer.writeString("collection", name);
+                writer.writeDateTime("rejectedAt", System.currentTimeMillis());
+                writer.writeInt32("code", error.getCode());
+                writer.writeString("message", error.getMessage());
+                writer.writeName("document");
+                codec.encode(writer, documents.get(error.getIndex()), EncoderContext.builder().build());
+                writer.writeEndDocument();
+            }
+            lines.append(line).append('\n');
+        }
+
+        Path file = MongoDBConfig.getSpoolDirectory().resolve(name).resolve("dead-letter.jsonl");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save rejected " + name + " entries to " + file, e);
+        }
+        return file;
+    }
+
+    // Reads up to max records from the checkpoint on, without moving it. Records that fail their checksum or
+    // cannot be decoded are copied to the quarantine directory and skipped.
+    private Batch<T> read(int max) {
+        List<T> documents = new ArrayList<>();
+        long segment = readSegment;
+        int offset = readOffset;
+        while (documents.size() < max) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int length = offset + HEADER_SIZE <= SEGMENT_SIZE ? buffer.getInt(offset) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT) {
+                if (segment == writeSegment) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || offset + HEADER_SIZE + length > SEGMENT_SIZE) {
+                // A damaged length leaves no way to find the next record, so the rest of the segment is set aside
+                int end = segment == writeSegment ? writeOffset : SEGMENT_SIZE;
+                quarantine(segment, offset, buffer, end - offset, "bad record length " + length);
+                if (segment == writeSegment) {
+                    offset = end;
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            if (crc(payload) != buffer.getInt(offset + 4)) {
+                quarantine(segment, offset, buffer, HEADER_SIZE + length, "checksum mismatch");
+            } else {
+                try {
+                    documents.add(decode(payload));
+                } catch (RuntimeException e) {
+                    quarantine(segment, offset, buffer, HEADER_SIZE + length, "cannot decode: " + e.getMessage());
+                }
+            }
+            offset += HEADER_SIZE + length;
+        }
+        return new Batch<>(documents, segment, offset);
+    }
+
+    // Keeps the raw bytes of an unreadable record for inspection; the same record is only written and reported once
+    private void quarantine(long segment, int offset, MappedByteBuffer buffer, int length, String reason) {
+        Path file = directory.resolve("quarantine").resolve(String.format("%012d-%d.bad", segment, offset));
+        if (Files.exists(file)) {
+            return;
+        }
+        byte[] raw = new byte[length];
+        buffer.get(offset, raw);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, raw);
+            System.err.println("✗ Skipped unreadable " + name + " spool record (" + reason + "), saved to " + file);
+        } catch (IOException e) {
+            System.err.println("✗ Skipped unreadable " + name + " spool record (" + reason + "), could not save it: " + e.getMessage());
+        }
+    }
+
+    private synchronized void commit(Batch<T> batch) throws IOException {
+        readSegment = batch.segment();
+        readOffset = batch.offset();
+        writeCheckpoint();
+        unindex(batch.documents());
+        // Whole segments behind the checkpoint have been shipped
+        while (segments.firstKey() < readSegment) {
+            long shipped = segments.pollFirstEntry().getKey();
+            Files.deleteIfExists(segmentPath(shipped));
+        }
+    }
+
+    private void roll() {
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        if (writeOffset + 4 <= SEGMENT_SIZE) {
+            buffer.putInt(writeOffset, END_OF_SEGMENT);
+        }
+        buffer.force();
+        try {
+            segments.put(writeSegment + 1, map(writeSegment + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writeSegment++;
+        writeOffset = 0;
+    }
+
+    // msync the current segment, so a power cut loses at most what arrived since the last shipper pass
+    private void forceWrites() {
+        if (dirty) {
+            segments.get(writeSegment).force();
+            dirty = false;
+        }
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.seg")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                long number = Long.parseLong(fileName.substring(0, fileName.length() - 4));
+                segments.put(number, map(number));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(1L, map(1));
+        }
+
+        readSegment = segments.firstKey();
+        readOffset = 0;
+        Path checkpoint = directory.resolve("checkpoint");
+        if (Files.exists(checkpoint)) {
+            ByteBuffer saved = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            long segment = saved.getLong();
+            int offset = saved.getInt();
+            if (segments.containsKey(segment)) {
+                readSegment = segment;
+                readOffset = offset;
+            }
+        }
+        while (segments.firstKey() < readSegment) {
+            Files.deleteIfExists(segmentPath(segments.pollFirstEntry().getKey()));
+        }
+
+        writeSegment = segments.lastKey();
+        writeOffset = findEnd(segments.get(writeSegment));
+        for (T entry : read(Integer.MAX_VALUE).documents()) {
+            index(entry);
+        }
+        if (!unshipped.isEmpty()) {
+            System.out.println("✓ " + unshipped.size() + " spooled " + name + " entries waiting to be shipped");
+        }
+    }
+
+    private void index(T entry) {
+        unshipped.addLast(entry);
+        unshippedByPatient.computeIfAbsent(entry.getPatientID(), id -> new ArrayDeque<>()).addLast(entry);
+    }
+
+    // Shipping goes in spool order, so the shipped entries are at the front of both queues
+    private void unindex(List<T> shipped) {
+        if (!shipped.isEmpty()) {
+            String lastId = shipped.get(shipped.size() - 1).getId();
+            while (!unshipped.isEmpty()) {
+                T entry = unshipped.pollFirst();
+                ArrayDeque<T> forPatient = unshippedByPatient.get(entry.getPatientID());
+                forPatient.removeFirstOccurrence(entry);
+                if (forPatient.isEmpty()) {
+                    unshippedByPatient.remove(entry.getPatientID());
+                }
+                if (entry.getId().equals(lastId)) {
+                    break;
+                }
+            }
+        }
+        if (readSegment == writeSegment && readOffset == writeOffset) {
+            unshipped.clear();
+            unshippedByPatient.clear();
+        }
+    }
+
+    // Walks the records of the last segment; a record torn by a crash ends the data and is wiped
+    private int findEnd(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= SEGMENT_SIZE) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            if (length == END_OF_SEGMENT) {
+                return SEGMENT_SIZE;
+            }
+            boolean valid = length > 0 && offset + HEADER_SIZE + length <= SEGMENT_SIZE;
+            if (valid) {
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_SIZE, payload);
+                int next = offset + HEADER_SIZE + length;
+                // A torn write can only be the last record; a bad checksum with records behind it is damage,
+                // which read() quarantines without losing what follows
+                valid = crc(payload) == buffer.getInt(offset + 4)
+                        || (next + HEADER_SIZE <= SEGMENT_SIZE && buffer.getInt(next) != 0);
+            }
+            if (!valid) {
+                buffer.put(offset, new byte[SEGMENT_SIZE - offset]);
+                buffer.force();
+                return offset;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    // Written to a temp file and moved into place, so a crash leaves either the old or the new checkpoint
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(12).putLong(readSegment).putInt(readOffset);
+        Path temp = directory.resolve("checkpoint.tmp");
+        Files.write(temp, data.array());
+        Files.move(temp, directory.resolve("checkpoint"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%012d.seg", segment));
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private byte[] encode(T entry) {
+        BasicOutputBuffer output = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(output)) {
+            codec.encode(writer, entry, EncoderContext.builder().build());
+        }
+        return output.toByteArray();
+    }
+
+    private T decode(byte[] payload) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(payload))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
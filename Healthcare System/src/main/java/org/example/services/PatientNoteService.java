@@ -2,53 +2,71 @@ package org.example.services;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.example.config.MongoDBConfig;
+import org.example.models.HistoryPage;
+import org.example.models.Page;
 import org.example.models.PatientNote;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-
-import static com.mongodb.client.model.Filters.eq;
+import java.util.stream.Stream;
 
 public class PatientNoteService {
     private static PatientNoteService instance;
-    private MongoCollection<Document> collection;
+    private static final String COLLECTION = "patient_notes";
+
+    // Typed collection: notes are written and read through PatientNoteCodec (see MongoDBConfig)
+    private MongoCollection<PatientNote> collection;
+    // Notes land here first and are shipped to MongoDB in batches; null if the spool could not be opened
+    private final MongoSpool<PatientNote> spool;
 
     private PatientNoteService() {
         MongoDatabase database = MongoDBConfig.getDatabase();
-        this.collection = database.getCollection("patient_notes");
+        this.collection = database.getCollection(COLLECTION, PatientNote.class);
+        MongoSchema.prepare(COLLECTION, collection);
+        this.spool = MongoSpool.open(COLLECTION, MongoDBConfig.getSpoolDirectory().resolve(COLLECTION), collection);
     }
 
-    public static PatientNoteService getInstance() {
+    public static synchronized PatientNoteService getInstance() {
         if (instance == null) {
             instance = new PatientNoteService();
         }
         return instance;
     }
 
+    // Ships what MongoDB accepts in time; anything else stays spooled for the next start
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            if (instance.spool != null) {
+                instance.spool.close();
+            }
+            instance = null;
+        }
+    }
+
+    // Returns once the note is in the local spool, whether or not MongoDB is reachable
     public void addNote(PatientNote note) {
-        Document doc = new Document("patientID", note.getPatientID())
-                .append("doctorID", note.getDoctorID())
-                .append("note", note.getNote())
-                .append("type", note.getType())
-                .append("timestamp", note.getTimestamp().toString());
-        collection.insertOne(doc);
+        note.setId(new ObjectId().toHexString());
+        if (spool != null) {
+            spool.append(note);
+        } else {
+            collection.insertOne(note);
+        }
     }
 
+    // Oldest first, including notes still waiting in the spool
     public List<PatientNote> getNotesByPatient(Integer patientID) {
-        List<PatientNote> notes = new ArrayList<>();
-        collection.find(eq("patientID", patientID)).forEach(doc -> {
-            PatientNote note = new PatientNote();
-            note.setId(doc.getObjectId("_id").toString());
-            note.setPatientID(doc.getInteger("patientID"));
-            note.setDoctorID(doc.getInteger("doctorID"));
-            note.setNote(doc.getString("note"));
-            note.setType(doc.getString("type"));
-            note.setTimestamp(LocalDateTime.parse(doc.getString("timestamp")));
-            notes.add(note);
-        });
-        return notes;
+        return MongoSchema.history(collection, spool, patientID);
+    }
+
+    // Newest first; pass the previous page's token to continue. With fields, only those are loaded
+    // (plus the id, patient and timestamp), e.g. getNotePage(id, null, 20, "type", "note").
+    public HistoryPage<PatientNote> getNotePage(Integer patientID, String pageToken, int limit, String... fields) {
+        return MongoSchema.historyPage(collection, spool, patientID, pageToken, Page.clampLimit(limit), fields);
+    }
+
+    // Newest first, read from MongoDB in batches as the stream is consumed; use in try-with-resources
+    public Stream<PatientNote> streamNotesByPatient(Integer patientID, String... fields) {
+        return MongoSchema.historyStream(collection, spool, patientID, fields);
     }
 }
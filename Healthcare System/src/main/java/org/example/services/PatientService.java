@@ -1,99 +1,221 @@
 package org.example.services;
 
 import org.example.dao.PatientDAO;
+import org.example.dao.SortOrder;
+import org.example.models.Page;
 import org.example.models.Patient;
 import org.example.utils.CacheManager;
+import org.example.utils.CacheStats;
+import org.example.utils.FuzzyNameIndex;
 import org.example.utils.ValidationException;
 import org.example.utils.Validator;
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class PatientService {
     private static PatientService instance;
     private PatientDAO patientDAO;
     private CacheManager<Integer, Patient> cache;
+    private StatisticsService statisticsService;
+    // Sound-alike / typo-tolerant name lookup over patient names; built on first use, then kept current by writes
+    private volatile FuzzyNameIndex nameIndex;
     private static final String ALL_PATIENTS_KEY = "all_patients";
+    private static final int MAX_CACHED_PATIENTS = 5_000;
+    // The full directory list is only kept while it is this small; larger directories are read page by page
+    private static final int MAX_CACHED_PATIENT_LIST_ELEMENTS = 20_000;
 
-    private PatientService(Connection conn) {
-        this.patientDAO = new PatientDAO(conn);
-        this.cache = new CacheManager<>();
+    private PatientService(DataSource dataSource) {
+        this.patientDAO = new PatientDAO(dataSource);
+        this.cache = CacheManager.<Integer, Patient>builder()
+                .maximumSize(MAX_CACHED_PATIENTS)
+                .maximumListElements(MAX_CACHED_PATIENT_LIST_ELEMENTS)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .refreshAfterWrite(Duration.ofMinutes(25))
+                .name("patients")
+                .listElements(Patient::getPatientID, Comparator.comparing(Patient::getPatientID))
+                .build();
+        this.statisticsService = StatisticsService.getInstance(dataSource);
     }
 
-    public static PatientService getInstance(Connection conn) {
+    public static synchronized PatientService getInstance(DataSource dataSource) {
         if (instance == null) {
-            instance = new PatientService(conn);
+            instance = new PatientService(dataSource);
         }
         return instance;
     }
 
     public void registerPatient(Patient patient) throws SQLException, ValidationException {
-        // Sanitize inputs
-        patient.setFirstName(Validator.sanitizeString(patient.getFirstName()));
-        patient.setLastName(Validator.sanitizeString(patient.getLastName()));
-        patient.setEmail(Validator.sanitizeString(patient.getEmail()));
-        patient.setPhone(Validator.sanitizeString(patient.getPhone()));
-        patient.setAddress(Validator.sanitizeString(patient.getAddress()));
-        patient.setGender(Validator.sanitizeString(patient.getGender()));
+        sanitizeAndValidate(patient);
 
-        // Validate inputs
-        Validator.validateName(patient.getFirstName(), "First Name");
-        Validator.validateName(patient.getLastName(), "Last Name");
-        Validator.validateEmail(patient.getEmail());
-        Validator.validatePhone(patient.getPhone());
-        Validator.validateDateOfBirth(patient.getDob());
-        Validator.validateGender(patient.getGender());
-        Validator.validateNotEmpty(patient.getAddress(), "Address");
+        // The audit entry commits with the patient row and reaches MongoDB through the outbox
+        patientDAO.create(patient, MedicalLogService.auditEntry(null, "Patient Registered",
+                "New patient: " + patient.getFirstName() + " " + patient.getLastName()));
+        AuditOutboxRelay.wake();
 
-        patientDAO.create(patient);
-        
-        // Invalidate cache after create
-        //Create  Operations affect list of patients since there have been new additions
-        // Caches must be invalidated since our cache is now not up to date
-        cache.invalidateListCaches();
+        // Create operations add the new patient to the cached lists instead of throwing them away
+        cache.upsertInLists(patient);
+        indexPut(patient);
+        statisticsService.onDataChanged();
+    }
+
+    // Validates the whole batch before touching the database, then inserts it in one transaction
+    public List<Integer> registerPatients(List<Patient> patients) throws SQLException, ValidationException {
+        for (int i = 0; i < patients.size(); i++) {
+            try {
+                sanitizeAndValidate(patients.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("Patient #" + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        // One audit entry per patient, committed with the rows
+        List<Integer> ids = patientDAO.createBatch(patients, patient -> MedicalLogService.auditEntry(patient.getPatientID(),
+                "Patient Registered", "New patient: " + patient.getFirstName() + " " + patient.getLastName()));
+        AuditOutboxRelay.wake();
+        cache.upsertInLists(patients);
+        indexPutAll(patients);
+        statisticsService.onDataChanged();
+        return ids;
     }
 
     public Patient getPatient(Integer id) throws SQLException {
-        // Check cache first
-        if (cache.containsKey(id)) {
-            return cache.get(id);
+        // Served from cache; on a miss one DAO call is shared by all concurrent callers
+        return cache.getOrLoad(id, () -> patientDAO.findById(id));
+    }
+
+    public List<Patient> getAllPatients() throws SQLException {
+        return cache.getListOrLoad(ALL_PATIENTS_KEY, patientDAO::findAll);
+    }
+
+    // Tolerates misspelt names ("Jonson" -> "Johnson"); a date of birth narrows the lookup to that day's records
+    public List<Patient> findPatientsByName(String name, LocalDate dob, int limit) throws SQLException {
+        if ((name == null || name.trim().isEmpty()) && dob == null) {
+            return List.of();
         }
-        //if we found the item in the cache..we have increased performance by avoiding a DB call
-        
-        // Fetch from database and cache
-        Patient patient = patientDAO.findById(id);
-        if (patient != null) {
-            cache.put(id, patient);
-            //if the item was found in the DB we add it to the cache for future requests
+        // The index holds only ids; the records come from the patient cache
+        List<Patient> matches = new ArrayList<>();
+        for (Integer id : nameIndex().search(name, dob, limit)) {
+            Patient patient = getPatient(id);
+            if (patient != null) {
+                matches.add(patient);
+            }
         }
-        return patient;
+        return matches;
     }
 
-    public List<Patient> getAllPatients() throws SQLException {
-        long startTime = System.nanoTime();
-        
-        // Check cache first
-        List<Patient> cached = cache.getList(ALL_PATIENTS_KEY);
-        if (cached != null) {
-            long duration = (System.nanoTime() - startTime) / 1_000_000;
-            System.out.println("✓ Cache HIT - Patients loaded from cache (" + duration + "ms)");
-            return cached;
+    private synchronized FuzzyNameIndex nameIndex() throws SQLException {
+        if (nameIndex == null) {
+            FuzzyNameIndex index = new FuzzyNameIndex();
+            patientDAO.forEachName((id, firstName, lastName, dob) -> index.put(id, List.of(firstName, lastName), dob));
+            nameIndex = index;
+        }
+        return nameIndex;
+    }
+
+    // Index updates are synchronized with the build, so a write during the first build is not lost
+    private synchronized void indexPut(Patient patient) {
+        if (nameIndex != null) {
+            nameIndex.put(patient.getPatientID(), List.of(patient.getFirstName(), patient.getLastName()), patient.getDob());
+        }
+    }
+
+    private synchronized void indexPutAll(List<Patient> patients) {
+        if (nameIndex != null) {
+            for (Patient patient : patients) {
+                indexPut(patient);
+            }
+        }
+    }
+
+    private synchronized void indexRemove(Integer id) {
+        if (nameIndex != null) {
+            nameIndex.remove(id);
         }
-        
-        // Fetch from database and cache
-        List<Patient> patients = patientDAO.findAll();
-        cache.putList(ALL_PATIENTS_KEY, patients);
-        
-        long duration = (System.nanoTime() - startTime) / 1_000_000;
-        System.out.println("✗ Cache MISS - Patients loaded from database (" + duration + "ms)");
-        return patients;
+    }
+
+    public Page<Patient> getPatientPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return patientDAO.findPage(afterId, limit, sort);
+    }
+
+    // Search runs in PostgreSQL against trigram indexes, so only the top matches leave the database
+    public List<Patient> searchPatients(String query, int limit) throws SQLException {
+        if (query == null || query.trim().isEmpty()) {
+            return List.of();
+        }
+        return patientDAO.search(query, limit);
     }
 
     public String getCacheStatus() {
         return cache.getCacheStatus();
     }
 
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    // Drops every cached entry, e.g. after a bulk import rewrote many rows
+    public void clearCache() {
+        cache.clear();
+        synchronized (this) {
+            nameIndex = null;
+        }
+    }
+
     public void updatePatient(Patient patient) throws SQLException, ValidationException {
+        sanitizeAndValidate(patient);
+
+        boolean updated = patientDAO.update(patient, MedicalLogService.auditEntry(patient.getPatientID(),
+                "Patient Updated", "Updated patient information"));
+        AuditOutboxRelay.wake();
+
+        // Replace the patient in the cached lists; drop it if the row no longer exists
+        cache.remove(patient.getPatientID());
+        if (updated) {
+            cache.upsertInLists(patient);
+            indexPut(patient);
+        } else {
+            cache.removeFromLists(patient.getPatientID());
+            indexRemove(patient.getPatientID());
+        }
+    }
+
+    public void deletePatient(Integer id) throws SQLException {
+        Patient known = cache.get(id);
+        patientDAO.delete(id, MedicalLogService.auditEntry(id, "Patient Deleted", known != null
+                ? "Deleted patient: " + known.getFirstName() + " " + known.getLastName()
+                : "Deleted patient #" + id));
+        AuditOutboxRelay.wake();
+
+        // Remove from the item cache and the cached lists
+        cache.remove(id);
+        cache.removeFromLists(id);
+        indexRemove(id);
+        statisticsService.onDataChanged();
+    }
+
+    // Called by CacheSyncListener for every committed change to a patient row, whichever client made it
+    void applyExternalChange(String operation, Integer id) throws SQLException {
+        cache.remove(id);
+        Patient fresh = null;
+        if (!"DELETE".equals(operation) && (cache.listCacheSize() > 0 || nameIndex != null)) {
+            fresh = patientDAO.findById(id);
+        }
+        if (fresh != null) {
+            cache.upsertInLists(fresh);
+            indexPut(fresh);
+        } else {
+            cache.removeFromLists(id);
+            indexRemove(id);
+        }
+    }
+
+    static void sanitizeAndValidate(Patient patient) throws ValidationException {
         // Sanitize inputs
         patient.setFirstName(Validator.sanitizeString(patient.getFirstName()));
         patient.setLastName(Validator.sanitizeString(patient.getLastName()));
@@ -110,19 +232,5 @@ public class PatientService {
         Validator.validateDateOfBirth(patient.getDob());
         Validator.validateGender(patient.getGender());
         Validator.validateNotEmpty(patient.getAddress(), "Address");
-
-        patientDAO.update(patient);
-        
-        // Invalidate cache after update
-        cache.remove(patient.getPatientID());
-        cache.invalidateListCaches();
-    }
-
-    public void deletePatient(Integer id) throws SQLException {
-        patientDAO.delete(id);
-        
-        // Invalidate cache after delete
-        cache.remove(id);
-        cache.invalidateListCaches();
     }
 }
@@ -0,0 +1,292 @@
+package org.example.services;
+
+import org.bson.types.ObjectId;
+import org.example.dao.PatientTimelineDAO;
+import org.example.models.HistoryPage;
+import org.example.models.MedicalLog;
+import org.example.models.Page;
+import org.example.models.PatientNote;
+import org.example.models.TimelineEntry;
+import org.example.models.TimelinePage;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// One chronological feed, newest first, of a patient's appointments, prescriptions and feedback (PostgreSQL)
+// and notes and audit log entries (MongoDB). Every source is read newest first in chunks, the first chunk of
+// all five in parallel, and a k-way merge over the chunk heads hands out entries as they are asked for, so a
+// page touches at most one chunk per source however long the history is. A source that fails is left out
+// (e.g. MongoDB down still shows the PostgreSQL history) and reported on the page.
+public class PatientTimelineService {
+    private static PatientTimelineService instance;
+    private static final int STREAM_CHUNK_SIZE = 200;
+    private static final String MIN_OBJECT_ID = "000000000000000000000000";
+    private static final String MAX_OBJECT_ID = "ffffffffffffffffffffffff";
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST =
+            Comparator.comparing(TimelineEntry::getTimestamp).reversed().thenComparing(TimelineEntry::getSource);
+
+    private final PatientTimelineDAO timelineDAO;
+    private final PatientNoteService noteService;
+    private final MedicalLogService logService;
+
+    private PatientTimelineService(DataSource dataSource) {
+        this.timelineDAO = new PatientTimelineDAO(dataSource);
+        this.noteService = PatientNoteService.getInstance();
+        this.logService = MedicalLogService.getInstance();
+    }
+
+    public static synchronized PatientTimelineService getInstance(DataSource dataSource) {
+        if (instance == null) {
+            instance = new PatientTimelineService(dataSource);
+        }
+        return instance;
+    }
+
+    // The entries after the token (or the newest, without one). The token is opaque; pass it back for the next page.
+    public TimelinePage getTimelinePage(Integer patientID, String pageToken, int limit) {
+        int pageSize = Page.clampLimit(limit);
+        Position after = pageToken == null ? null : Position.parse(pageToken);
+        // One extra row per source is enough to fill the page and tell whether more follows
+        Merge merge = new Merge(readers(patientID, after), pageSize + 1);
+
+        List<TimelineEntry> items = new ArrayList<>();
+        while (items.size() <= pageSize && merge.hasNext()) {
+            items.add(merge.next());
+        }
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items.remove(pageSize);
+        }
+        String nextToken = items.isEmpty() ? null : Position.tokenOf(items.get(items.size() - 1));
+        return new TimelinePage(items, nextToken, hasMore, merge.unavailable);
+    }
+
+    // The whole timeline, newest first; each source is read a chunk at a time as the stream reaches it.
+    // Only the first chunks are fetched up front, so stopping early (findFirst, limit) reads little.
+    public Stream<TimelineEntry> streamTimeline(Integer patientID) {
+        Merge merge = new Merge(readers(patientID, null), STREAM_CHUNK_SIZE);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merge, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Reads one source newest first, a chunk per call, each call resuming after the previous one
+    @FunctionalInterface
+    private interface Reader {
+        Chunk read(int limit) throws SQLException;
+    }
+
+    private record Chunk(List<TimelineEntry> entries, boolean hasMore) {
+    }
+
+    private Map<TimelineEntry.Source, Reader> readers(Integer patientID, Position after) {
+        Map<TimelineEntry.Source, Reader> readers = new EnumMap<>(TimelineEntry.Source.class);
+        readers.put(TimelineEntry.Source.APPOINTMENT, sqlReader(after, TimelineEntry.Source.APPOINTMENT,
+                (before, beforeId, limit) -> timelineDAO.findAppointments(patientID, before, beforeId, limit)));
+        readers.put(TimelineEntry.Source.PRESCRIPTION, sqlReader(after, TimelineEntry.Source.PRESCRIPTION,
+                (before, beforeId, limit) -> timelineDAO.findPrescriptions(patientID, before, beforeId, limit)));
+        readers.put(TimelineEntry.Source.FEEDBACK, sqlReader(after, TimelineEntry.Source.FEEDBACK,
+                (before, beforeId, limit) -> timelineDAO.findFeedback(patientID, before, beforeId, limit)));
+        readers.put(TimelineEntry.Source.NOTE, mongoReader(after, TimelineEntry.Source.NOTE, (token, limit) -> {
+            HistoryPage<PatientNote> page = noteService.getNotePage(patientID, token, limit, "type", "note");
+            List<TimelineEntry> entries = new ArrayList<>();
+            for (PatientNote note : page.getItems()) {
+                entries.add(new TimelineEntry(TimelineEntry.Source.NOTE, note.getId(), note.getTimestamp(),
+                        "Note (" + note.getType() + ")", note.getNote()));
+            }
+            return new HistoryPage<>(entries, page.getNextToken(), page.hasMore());
+        }));
+        readers.put(TimelineEntry.Source.LOG, mongoReader(after, TimelineEntry.Source.LOG, (token, limit) -> {
+            HistoryPage<MedicalLog> page = logService.getLogPage(patientID, token, limit, "action", "details", "performedBy");
+            List<TimelineEntry> entries = new ArrayList<>();
+            for (MedicalLog log : page.getItems()) {
+                entries.add(new TimelineEntry(TimelineEntry.Source.LOG, log.getId(), log.getTimestamp(),
+                        log.getAction(), log.getDetails() + " (by " + log.getPerformedBy() + ")"));
+            }
+            return new HistoryPage<>(entries, page.getNextToken(), page.hasMore());
+        }));
+        return readers;
+    }
+
+    @FunctionalInterface
+    private interface SqlQuery {
+        List<TimelineEntry> find(LocalDateTime before, int beforeId, int limit) throws SQLException;
+    }
+
+    private static Reader sqlReader(Position after, TimelineEntry.Source source, SqlQuery query) {
+        return new Reader() {
+            // SERIAL keys start at 1, so 0 and MAX_VALUE fall before and after every row of a timestamp
+            private LocalDateTime before = after == null ? null : after.timestamp();
+            private int beforeId = after == null ? 0 : after.bound(source, "0", String.valueOf(Integer.MAX_VALUE), Integer::parseInt);
+
+            @Override
+            public Chunk read(int limit) throws SQLException {
+                List<TimelineEntry> entries = query.find(before, beforeId, limit);
+                if (!entries.isEmpty()) {
+                    TimelineEntry last = entries.get(entries.size() - 1);
+                    before = last.getTimestamp();
+                    beforeId = Integer.parseInt(last.getId());
+                }
+                return new Chunk(entries, entries.size() == limit);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface MongoQuery {
+        HistoryPage<TimelineEntry> find(String token, int limit);
+    }
+
+    private static Reader mongoReader(Position after, TimelineEntry.Source source, MongoQuery query) {
+        return new Reader() {
+            // Continues with the history's own tokens, which also cover entries whose timestamp is not migrated yet
+            private String token = after == null ? null
+                    : MongoSchema.tokenAt(after.timestamp(), after.bound(source, MIN_OBJECT_ID, MAX_OBJECT_ID, ObjectId::new));
+
+            @Override
+            public Chunk read(int limit) {
+                HistoryPage<TimelineEntry> page = query.find(token, limit);
+                if (page.getNextToken() != null) {
+                    token = page.getNextToken();
+                }
+                return new Chunk(page.getItems(), page.hasMore());
+            }
+        };
+    }
+
+    // The k-way merge: a heap of sources ordered by the newest entry each has left. A source is read again
+    // only when its chunk runs out, and drops out once it has nothing more or a read fails.
+    private static final class Merge implements Iterator<TimelineEntry> {
+        private final int chunkSize;
+        private final PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> NEWEST_FIRST.compare(a.head(), b.head()));
+        private final Set<TimelineEntry.Source> unavailable = EnumSet.noneOf(TimelineEntry.Source.class);
+
+        Merge(Map<TimelineEntry.Source, Reader> readers, int chunkSize) {
+            this.chunkSize = chunkSize;
+            // PostgreSQL and MongoDB round trips overlap instead of adding up
+            Map<TimelineEntry.Source, CompletableFuture<Chunk>> firstChunks = new EnumMap<>(TimelineEntry.Source.class);
+            readers.forEach((source, reader) -> firstChunks.put(source, AsyncServices.supply(() -> reader.read(chunkSize))));
+            RuntimeException lastFailure = null;
+            for (Map.Entry<TimelineEntry.Source, CompletableFuture<Chunk>> first : firstChunks.entrySet()) {
+                Cursor cursor = new Cursor(first.getKey(), readers.get(first.getKey()));
+                try {
+                    offer(cursor, first.getValue().join());
+                } catch (CompletionException e) {
+                    lastFailure = e;
+                    drop(cursor, e.getCause());
+                }
+            }
+            // Nothing at all to show is a failure, not an empty history
+            if (unavailable.size() == readers.size() && lastFailure != null) {
+                throw new IllegalStateException("Failed to read patient timeline: " + lastFailure.getCause().getMessage(),
+                        lastFailure.getCause());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public TimelineEntry next() {
+            Cursor cursor = heads.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            TimelineEntry entry = cursor.head();
+            cursor.index++;
+            if (cursor.index < cursor.entries.size()) {
+                heads.add(cursor);
+            } else if (cursor.hasMore) {
+                try {
+                    offer(cursor, cursor.reader.read(chunkSize));
+                } catch (SQLException | RuntimeException e) {
+                    drop(cursor, e);
+                }
+            }
+            return entry;
+        }
+
+        // The other sources go on without it
+        private void drop(Cursor cursor, Throwable cause) {
+            unavailable.add(cursor.source);
+            System.err.println("✗ Patient timeline: " + cursor.source + " entries unavailable: " + cause.getMessage());
+        }
+
+        private void offer(Cursor cursor, Chunk chunk) {
+            cursor.entries = chunk.entries();
+            cursor.index = 0;
+            cursor.hasMore = chunk.hasMore();
+            if (!cursor.entries.isEmpty()) {
+                heads.add(cursor);
+            }
+        }
+    }
+
+    private static final class Cursor {
+        private final TimelineEntry.Source source;
+        private final Reader reader;
+        private List<TimelineEntry> entries = List.of();
+        private int index;
+        private boolean hasMore;
+
+        Cursor(TimelineEntry.Source source, Reader reader) {
+            this.source = source;
+            this.reader = reader;
+        }
+
+        TimelineEntry head() {
+            return entries.get(index);
+        }
+    }
+
+    // Where a page ended: the last entry's timestamp, source and id. Every source resumes from it on its own
+    // sort key: sources ordered before the entry's skip its whole timestamp, sources after it take all of it.
+    private record Position(LocalDateTime timestamp, TimelineEntry.Source source, String id) {
+        // Opaque to callers: ISO timestamp '|' source '|' id
+        static String tokenOf(TimelineEntry entry) {
+            return entry.getTimestamp() + "|" + entry.getSource() + "|" + entry.getId();
+        }
+
+        static Position parse(String token) {
+            String[] parts = token.split("\\|", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+            try {
+                return new Position(LocalDateTime.parse(parts[0]), TimelineEntry.Source.valueOf(parts[1]), parts[2]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+        }
+
+        // The id a source resumes below at this timestamp
+        <K> K bound(TimelineEntry.Source reading, String lowest, String highest, Function<String, K> parse) {
+            int order = reading.compareTo(source);
+            try {
+                return parse.apply(order < 0 ? lowest : order > 0 ? highest : id);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page token id: " + id);
+            }
+        }
+    }
+}
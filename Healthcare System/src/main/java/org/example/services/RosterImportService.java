@@ -0,0 +1,252 @@
+package org.example.services;
+
+import org.example.dao.RosterImportDAO;
+import org.example.dao.RosterImportDAO.Roster;
+import org.example.dao.RosterImportDAO.StagingSession;
+import org.example.models.Doctor;
+import org.example.models.ImportResult;
+import org.example.models.Patient;
+import org.example.utils.CsvUtil;
+import org.example.utils.SessionManager;
+import org.example.utils.ValidationException;
+import org.example.utils.Validator;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class RosterImportService {
+    private static final int CHUNK_SIZE = 5_000;
+    private static final String[] PATIENT_COLUMNS = {"FirstName", "LastName", "DOB", "Gender", "Email", "Phone", "Address"};
+    private static final String[] DOCTOR_COLUMNS = {"FirstName", "LastName", "DepartmentID", "Phone", "Email", "HireDate"};
+
+    private static RosterImportService instance;
+    private final DataSource dataSource;
+    private final RosterImportDAO importDAO;
+
+    private RosterImportService(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.importDAO = new RosterImportDAO(dataSource);
+    }
+
+    public static synchronized RosterImportService getInstance(DataSource dataSource) {
+        if (instance == null) {
+            instance = new RosterImportService(dataSource);
+        }
+        return instance;
+    }
+
+    // Row converter: validates one parsed CSV record and returns the staged CSV line
+    private interface RowConverter {
+        String convert(long lineNo, String[] fields) throws ValidationException;
+    }
+
+    private record SourceLine(long lineNo, String text) {}
+
+    private record RowResult(long lineNo, String staged, String rejectReason, String raw) {}
+
+    public ImportResult importPatients(Path csvFile, Path rejectFile, ImportProgressListener listener)
+            throws IOException, SQLException, ValidationException {
+        ImportResult result = runImport(Roster.PATIENTS, PATIENT_COLUMNS, this::convertPatient, csvFile, rejectFile, listener);
+        PatientService.getInstance(dataSource).clearCache();
+        StatisticsService.getInstance(dataSource).onDataChanged();
+        return result;
+    }
+
+    public ImportResult importDoctors(Path csvFile, Path rejectFile, ImportProgressListener listener)
+            throws IOException, SQLException, ValidationException {
+        ImportResult result = runImport(Roster.DOCTORS, DOCTOR_COLUMNS, this::convertDoctor, csvFile, rejectFile, listener);
+        DoctorService.getInstance(dataSource).clearCache();
+        StatisticsService.getInstance(dataSource).onDataChanged();
+        return result;
+    }
+
+    // Default reject file: "<name>.rejects.csv" next to the source file
+    public static Path rejectFileFor(Path csvFile) {
+        String name = csvFile.getFileName().toString();
+        String base = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        return csvFile.resolveSibling(base + ".rejects.csv");
+    }
+
+    private ImportResult runImport(Roster roster, String[] columns, RowConverter converter, Path csvFile,
+                                   Path rejectFile, ImportProgressListener listener)
+            throws IOException, SQLException, ValidationException {
+        long totalBytes = Math.max(1, Files.size(csvFile));
+        long bytesRead = 0;
+        long rowsRead = 0;
+        long rowsRejected = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new ValidationException("Import file is empty");
+            }
+            int[] columnIndexes = resolveColumns(CsvUtil.parseLine(stripBom(header)), columns);
+            bytesRead += header.length() + 1;
+            rejects.write("Line,Reason,Record");
+            rejects.newLine();
+
+            try (StagingSession session = importDAO.begin(roster)) {
+                long lineNo = 1;
+                List<SourceLine> chunk = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                boolean eof = false;
+
+                while (!eof) {
+                    chunk.clear();
+                    long chunkStart = lineNo + 1;
+                    while (chunk.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                        lineNo++;
+                        bytesRead += line.length() + 1;
+                        chunk.add(new SourceLine(lineNo, line));
+                    }
+                    eof = chunk.size() < CHUNK_SIZE;
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+
+                    // Validation is CPU-bound and independent per row, so it fans out across cores
+                    List<RowResult> results = chunk.parallelStream()
+                            .map(row -> validateRow(row.lineNo(), row.text(), columnIndexes, converter))
+                            .filter(Objects::nonNull)
+                            .toList();
+
+                    StringBuilder staged = new StringBuilder(results.size() * 96);
+                    for (RowResult r : results) {
+                        rowsRead++;
+                        if (r.staged() != null) {
+                            staged.append(r.staged()).append('\n');
+                        } else {
+                            rowsRejected++;
+                            writeReject(rejects, r.lineNo(), r.rejectReason(), r.raw());
+                        }
+                    }
+                    if (staged.length() > 0) {
+                        session.write(staged.toString());
+                    }
+                    notify(listener, "Staging rows " + chunkStart + "-" + lineNo, rowsRead, rowsRejected,
+                            Math.min(0.9, 0.9 * bytesRead / totalBytes));
+                }
+
+                session.finishCopy();
+
+                for (long[] orphan : session.removeOrphans()) {
+                    rowsRejected++;
+                    writeReject(rejects, orphan[0], "Department ID " + orphan[1] + " does not exist", "");
+                }
+
+                notify(listener, "Merging staged rows", rowsRead, rowsRejected, 0.95);
+                long[] merged = session.merge(SessionManager.getCurrentUsername());
+                session.commit();
+                AuditOutboxRelay.wake();
+
+                ImportResult result = new ImportResult(rowsRead, rowsRejected, merged[0], merged[1]);
+                notify(listener, "Import complete", rowsRead, rowsRejected, 1.0);
+                System.out.println("✓ Bulk import (" + roster + ") - " + result);
+                return result;
+            }
+        }
+    }
+
+    private RowResult validateRow(long lineNo, String line, int[] columnIndexes, RowConverter converter) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            String[] raw = CsvUtil.parseLine(line);
+            String[] fields = new String[columnIndexes.length];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                int index = columnIndexes[i];
+                fields[i] = index < raw.length ? raw[index] : null;
+            }
+            return new RowResult(lineNo, converter.convert(lineNo, fields), null, line);
+        } catch (ValidationException e) {
+            return new RowResult(lineNo, null, e.getMessage(), line);
+        }
+    }
+
+    private String convertPatient(long lineNo, String[] f) throws ValidationException {
+        Patient patient = new Patient(f[0], f[1], parseDate(f[2], "Date of Birth"), f[3], f[4], f[5], f[6]);
+        PatientService.sanitizeAndValidate(patient);
+        validateMaxLength(patient.getEmail(), 150, "Email");
+        validateMaxLength(patient.getPhone(), 15, "Phone");
+        return CsvUtil.join(lineNo, patient.getFirstName(), patient.getLastName(), patient.getDob(),
+                patient.getGender(), patient.getEmail(), patient.getPhone(), patient.getAddress());
+    }
+
+    private String convertDoctor(long lineNo, String[] f) throws ValidationException {
+        Doctor doctor = new Doctor(f[0], f[1], parseInteger(f[2], "Department ID"), f[3], f[4], parseDate(f[5], "Hire Date"));
+        DoctorService.sanitizeAndValidate(doctor);
+        validateMaxLength(doctor.getEmail(), 150, "Email");
+        validateMaxLength(doctor.getPhone(), 15, "Phone");
+        return CsvUtil.join(lineNo, doctor.getFirstName(), doctor.getLastName(), doctor.getDepartmentID(),
+                doctor.getPhone(), doctor.getEmail(), doctor.getHireDate());
+    }
+
+    private static int[] resolveColumns(String[] header, String[] columns) throws ValidationException {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = -1;
+            for (int j = 0; j < header.length; j++) {
+                if (header[j].trim().equalsIgnoreCase(columns[i])) {
+                    indexes[i] = j;
+                    break;
+                }
+            }
+            if (indexes[i] < 0) {
+                throw new ValidationException("Import file is missing column: " + columns[i]);
+            }
+        }
+        return indexes;
+    }
+
+    private static LocalDate parseDate(String value, String fieldName) throws ValidationException {
+        Validator.validateNotEmpty(value, fieldName);
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new ValidationException(fieldName + " must be in YYYY-MM-DD format");
+        }
+    }
+
+    private static Integer parseInteger(String value, String fieldName) throws ValidationException {
+        Validator.validateNotEmpty(value, fieldName);
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException(fieldName + " must be a number");
+        }
+    }
+
+    private static void validateMaxLength(String value, int max, String fieldName) throws ValidationException {
+        if (value != null && value.length() > max) {
+            throw new ValidationException(fieldName + " must be at most " + max + " characters");
+        }
+    }
+
+    private static void writeReject(BufferedWriter rejects, long lineNo, String reason, String raw) throws IOException {
+        rejects.write(CsvUtil.join(lineNo, reason, raw));
+        rejects.newLine();
+    }
+
+    private static void notify(ImportProgressListener listener, String stage, long rowsRead, long rowsRejected, double fraction) {
+        if (listener != null) {
+            listener.onProgress(stage, rowsRead, rowsRejected, fraction);
+        }
+    }
+
+    private static String stripBom(String header) {
+        return header.startsWith("\uFEFF") ? header.substring(1) : header;
+    }
+}
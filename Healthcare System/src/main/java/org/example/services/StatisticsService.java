@@ -0,0 +1,85 @@
+package org.example.services;
+
+import org.example.dao.StatisticsDAO;
+import org.example.models.DashboardStats;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class StatisticsService {
+    private static StatisticsService instance;
+    private static final long REFRESH_INTERVAL_SECONDS = 60;
+    // Bursts of writes (e.g. a batch insert) collapse into one refresh
+    private static final long WRITE_REFRESH_DELAY_MS = 500;
+
+    private final StatisticsDAO statisticsDAO;
+    private final ScheduledExecutorService scheduler;
+    private volatile DashboardStats cached;
+    private ScheduledFuture<?> pendingRefresh;
+
+    private StatisticsService(DataSource dataSource) {
+        this.statisticsDAO = new StatisticsDAO(dataSource);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statistics-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized StatisticsService getInstance(DataSource dataSource) {
+        if (instance == null) {
+            instance = new StatisticsService(dataSource);
+        }
+        return instance;
+    }
+
+    // Returns the cached figures straight away; only the very first call waits for the database
+    public DashboardStats getStatistics() throws SQLException {
+        DashboardStats stats = cached;
+        if (stats == null) {
+            stats = refresh();
+        }
+        return stats;
+    }
+
+    // Cached figures without touching the database (null until the first load)
+    public DashboardStats getCachedStatistics() {
+        return cached;
+    }
+
+    public DashboardStats refresh() throws SQLException {
+        DashboardStats stats = statisticsDAO.loadStatistics();
+        cached = stats;
+        return stats;
+    }
+
+    // Called by the other services after a write; recomputes the figures shortly afterwards in the background
+    public synchronized void onDataChanged() {
+        // A refresh that has not started yet will already see this write
+        if (scheduler.isShutdown() || (pendingRefresh != null && pendingRefresh.getDelay(TimeUnit.MILLISECONDS) > 0)) {
+            return;
+        }
+        pendingRefresh = scheduler.schedule(this::refreshQuietly, WRITE_REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.scheduler.shutdownNow();
+            instance = null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (SQLException e) {
+            System.err.println("Statistics refresh failed: " + e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package org.example.services;
 
 import org.example.dao.UserDAO;
+import org.example.dao.SortOrder;
+import org.example.models.Page;
 import org.example.models.User;
 import org.example.utils.ValidationException;
 import org.example.utils.Validator;
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.util.List;
 
 public class UserService {
     private UserDAO userDAO;
 
-    public UserService(Connection conn) {
-        this.userDAO = new UserDAO(conn);
+    public UserService(DataSource dataSource) {
+        this.userDAO = new UserDAO(dataSource);
     }
 
     public User authenticate(String username, String password) throws SQLException, ValidationException {
@@ -45,6 +47,10 @@ public class UserService {
         return userDAO.findAll();
     }
 
+    public Page<User> getUserPage(Integer afterId, int limit, SortOrder sort) throws SQLException {
+        return userDAO.findPage(afterId, limit, sort);
+    }
+
     public void updateUser(User user) throws SQLException, ValidationException {
         Validator.validateNotEmpty(user.getUsername(), "Username");
         Validator.validateName(user.getFirstName(), "First Name");
@@ -1,72 +1,851 @@
 package org.example.utils;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class CacheManager<K, V> {
-    private final Map<K, V> cache;
-    private final Map<String, List<V>> listCache;
+    // Defaults keep a cache created with "new CacheManager<>()" bounded
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(30);
+    private static final int DEFAULT_MAXIMUM_LISTS = 32;
+    // Lists are bounded by their total element count as well, since one list can hold a whole table
+    public static final long DEFAULT_MAXIMUM_LIST_ELEMENTS = 50_000;
+
+    public enum EvictionPolicy {
+        // Drop the least recently used entry
+        LRU,
+        // LRU order, but a new key only displaces the LRU victim if it has been requested more often
+        TINY_LFU
+    }
+
+    public enum RemovalCause { SIZE, EXPIRED }
+
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    // Fetches a value on a cache miss, typically a DAO call. A loaded list is handed over to the cache
+    // as-is (no copy), so the loader must not keep or modify it afterwards.
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value, RemovalCause cause);
+    }
+
+    private static class Entry<T> {
+        final T value;
+        final int weight;
+        final long writeTime;
+        long accessTime;
+
+        Entry(T value, int weight, long now) {
+            this(value, weight, now, now);
+        }
+
+        Entry(T value, int weight, long writeTime, long accessTime) {
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+            this.accessTime = accessTime;
+        }
+    }
+
+    private record Removal<K, V>(K key, V value, RemovalCause cause) {}
+
+    private final long maximumWeight;
+    private final int maximumLists;
+    private final long maximumListElements;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAfterWriteNanos;
+    private final EvictionPolicy policy;
+    private final Weigher<K, V> weigher;
+    private final List<EvictionListener<K, V>> listeners;
+    private final FrequencySketch sketch;
+    private final Function<V, K> listKey;
+    private final Comparator<V> listOrder;
+
+    // Access-ordered maps: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> cache;
+    private final LinkedHashMap<String, Entry<List<V>>> listCache;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalWeight;
+    private long totalListElements;
+
+    // Loads currently running, so that concurrent misses on one key share a single DAO call
+    private final Map<K, CompletableFuture<V>> loadsInFlight = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<List<V>>> listLoadsInFlight = new ConcurrentHashMap<>();
+    // Bumped by every write; a load that overlapped a write returns its result but does not cache it
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private static final long NO_GENERATION = -1;
+    private static final ExecutorService REFRESH_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-refresh-", 0).factory());
+
+    // Statistics are LongAdders so that recording never contends with the cache lock
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
 
     public CacheManager() {
-        this.cache = new ConcurrentHashMap<>();
-        this.listCache = new ConcurrentHashMap<>();
+        this(builder());
+    }
+
+    private CacheManager(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.maximumLists = builder.maximumLists;
+        this.maximumListElements = builder.maximumListElements;
+        this.expireAfterWriteNanos = builder.expireAfterWrite == null ? 0 : builder.expireAfterWrite.toNanos();
+        this.expireAfterAccessNanos = builder.expireAfterAccess == null ? 0 : builder.expireAfterAccess.toNanos();
+        this.refreshAfterWriteNanos = builder.refreshAfterWrite == null ? 0 : builder.refreshAfterWrite.toNanos();
+        this.policy = builder.policy;
+        this.weigher = builder.weigher;
+        this.listeners = List.copyOf(builder.listeners);
+        this.sketch = policy == EvictionPolicy.TINY_LFU ? new FrequencySketch(maximumWeight) : null;
+        this.listKey = builder.listKey;
+        this.listOrder = builder.listOrder;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.listCache = new LinkedHashMap<>(16, 0.75f, true);
+        if (builder.name != null) {
+            registerMBean(builder.name);
+        }
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
     }
 
     // Single item cache operations
     public void put(K key, V value) {
-        cache.put(key, value);
+        store(key, value, NO_GENERATION);
+    }
+
+    // With a generation (a load's result) the value is only stored if no write happened since the load began;
+    // checked under the lock, so a remove() cannot slip in between the check and the store. A loaded value
+    // was already counted by get() on the miss, so the sketch is not bumped a second time.
+    private void store(K key, V value, long generation) {
+        int weight = weigher.weigh(key, value);
+        List<Removal<K, V>> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            if (generation != NO_GENERATION && generation != writeGeneration.get()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (generation == NO_GENERATION) {
+                recordAccess(key);
+            }
+            Entry<V> previous = cache.get(key);
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            } else if (!admit(key, weight, now, removals)) {
+                removals.add(new Removal<>(key, value, RemovalCause.SIZE));
+                return;
+            }
+            cache.put(key, new Entry<>(value, weight, now));
+            totalWeight += weight;
+            expireStale(now, removals);
+            evictToFit(removals);
+        } finally {
+            lock.unlock();
+            notifyListeners(removals);
+        }
     }
 
     public V get(K key) {
-        return cache.get(key);
+        long start = System.nanoTime();
+        V value = null;
+        List<Removal<K, V>> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            recordAccess(key);
+            Entry<V> entry = cache.get(key);
+            if (entry != null) {
+                if (isExpired(entry, start)) {
+                    cache.remove(key);
+                    totalWeight -= entry.weight;
+                    removals.add(new Removal<>(key, entry.value, RemovalCause.EXPIRED));
+                } else {
+                    entry.accessTime = start;
+                    value = entry.value;
+                }
+            }
+        } finally {
+            lock.unlock();
+            notifyListeners(removals);
+        }
+        recordLookup(value != null, start);
+        return value;
+    }
+
+    // Read-through lookup: on a miss only one caller runs the loader, concurrent callers for the same key wait
+    // for its result. Null results are returned but not cached. Entries older than refreshAfterWrite are
+    // returned immediately and reloaded in the background.
+    public V getOrLoad(K key, Loader<V> loader) throws SQLException {
+        V value = get(key);
+        if (value != null) {
+            if (isRefreshDue(cache, key)) {
+                REFRESH_EXECUTOR.execute(() -> refreshQuietly(() -> load(key, loader)));
+            }
+            return value;
+        }
+        return load(key, loader);
+    }
+
+    private V load(K key, Loader<V> loader) throws SQLException {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = loadsInFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            long generation = writeGeneration.get();
+            long start = System.nanoTime();
+            V value = loader.load();
+            recordLoad(System.nanoTime() - start);
+            if (value != null) {
+                store(key, value, generation);
+            }
+            mine.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(key, mine);
+        }
     }
 
     public void remove(K key) {
-        cache.remove(key);
+        writeGeneration.incrementAndGet();
+        lock.lock();
+        try {
+            Entry<V> entry = cache.remove(key);
+            if (entry != null) {
+                totalWeight -= entry.weight;
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean containsKey(K key) {
-        return cache.containsKey(key);
+        lock.lock();
+        try {
+            Entry<V> entry = cache.get(key);
+            return entry != null && !isExpired(entry, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
     }
 
-    // List cache operations
+    // List cache operations: lists are stored as immutable snapshots, sorted by listOrder when one is configured.
+    // The caller keeps ownership of the list passed in, so it is copied once here.
     public void putList(String key, List<V> list) {
-        listCache.put(key, new ArrayList<>(list));
+        storeList(key, listOrder == null ? List.copyOf(list) : list.stream().sorted(listOrder).toList(), NO_GENERATION);
+    }
+
+    // Same generation check as store(), under the same lock
+    private void storeList(String key, List<V> snapshot, long generation) {
+        lock.lock();
+        try {
+            if (generation != NO_GENERATION && generation != writeGeneration.get()) {
+                return;
+            }
+            Entry<List<V>> previous = listCache.remove(key);
+            if (previous != null) {
+                totalListElements -= previous.weight;
+            }
+            if (snapshot.size() > maximumListElements) {
+                // Larger than the whole list budget: handed back to the caller but never admitted
+                rejections.increment();
+                return;
+            }
+            listCache.put(key, new Entry<>(snapshot, snapshot.size(), System.nanoTime()));
+            totalListElements += snapshot.size();
+            evictListsToFit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops least recently used lists until both the list count and the element count are within bounds
+    private void evictListsToFit() {
+        Iterator<Entry<List<V>>> eldest = listCache.values().iterator();
+        while ((listCache.size() > maximumLists || totalListElements > maximumListElements) && eldest.hasNext()) {
+            totalListElements -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
     }
 
+    // Returns the shared immutable snapshot itself: no copy is made, and any attempt to modify it throws
     public List<V> getList(String key) {
-        List<V> list = listCache.get(key);
-        return list != null ? new ArrayList<>(list) : null;
+        long start = System.nanoTime();
+        List<V> list = null;
+        lock.lock();
+        try {
+            Entry<List<V>> entry = listCache.get(key);
+            if (entry != null) {
+                if (isExpired(entry, start)) {
+                    listCache.remove(key);
+                    totalListElements -= entry.weight;
+                    expirations.increment();
+                } else {
+                    entry.accessTime = start;
+                    list = entry.value;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        recordLookup(list != null, start);
+        return list;
+    }
+
+    // List version of getOrLoad: concurrent misses share one load, and lists past refreshAfterWrite
+    // are reloaded in the background while callers keep getting the cached snapshot
+    public List<V> getListOrLoad(String key, Loader<List<V>> loader) throws SQLException {
+        List<V> list = getList(key);
+        if (list != null) {
+            if (isRefreshDue(listCache, key)) {
+                REFRESH_EXECUTOR.execute(() -> refreshQuietly(() -> loadList(key, loader)));
+            }
+            return list;
+        }
+        return loadList(key, loader);
+    }
+
+    private List<V> loadList(String key, Loader<List<V>> loader) throws SQLException {
+        CompletableFuture<List<V>> mine = new CompletableFuture<>();
+        CompletableFuture<List<V>> running = listLoadsInFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            long generation = writeGeneration.get();
+            long start = System.nanoTime();
+            List<V> list = ownedSnapshot(loader.load());
+            recordLoad(System.nanoTime() - start);
+            storeList(key, list, generation);
+            mine.complete(list);
+            return list;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            listLoadsInFlight.remove(key, mine);
+        }
+    }
+
+    // Freezes a freshly loaded list without copying it; only an out-of-order list is copied to be sorted
+    private List<V> ownedSnapshot(List<V> loaded) {
+        if (listOrder != null && !isSorted(loaded)) {
+            return loaded.stream().sorted(listOrder).toList();
+        }
+        return Collections.unmodifiableList(loaded);
+    }
+
+    private boolean isSorted(List<V> list) {
+        V previous = null;
+        for (V value : list) {
+            if (previous != null && listOrder.compare(previous, value) > 0) {
+                return false;
+            }
+            previous = value;
+        }
+        return true;
+    }
+
+    private static <T> T await(CompletableFuture<T> load) throws SQLException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private <T> boolean isRefreshDue(LinkedHashMap<T, ? extends Entry<?>> map, T key) {
+        if (refreshAfterWriteNanos == 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Entry<?> entry = map.get(key);
+            return entry != null && System.nanoTime() - entry.writeTime >= refreshAfterWriteNanos
+                    && !(map == cache ? loadsInFlight.containsKey(key) : listLoadsInFlight.containsKey(key));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshQuietly(Loader<?> refresh) {
+        try {
+            refresh.load();
+        } catch (SQLException | RuntimeException e) {
+            // The current entry stays until it expires; the next caller retries the load
+            System.err.println("Cache refresh failed: " + e.getMessage());
+        }
     }
 
     public void removeList(String key) {
-        listCache.remove(key);
+        writeGeneration.incrementAndGet();
+        lock.lock();
+        try {
+            Entry<List<V>> entry = listCache.remove(key);
+            if (entry != null) {
+                totalListElements -= entry.weight;
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies a create or update to every cached list instead of dropping them: the element with the same key
+    // is replaced, or the value is inserted at its sorted position. Without listElements(...) the lists are invalidated.
+    public void upsertInLists(V value) {
+        upsertInLists(List.of(value));
+    }
+
+    public void upsertInLists(Collection<V> values) {
+        writeGeneration.incrementAndGet();
+        if (listKey == null || listOrder == null) {
+            invalidateListCaches();
+            return;
+        }
+        // Sorted once, outside the lock; the last value wins when the batch repeats a key
+        Map<K, V> byKey = new LinkedHashMap<>();
+        for (V value : values) {
+            byKey.put(listKey.apply(value), value);
+        }
+        List<V> batch = new ArrayList<>(byKey.values());
+        batch.sort(listOrder);
+        lock.lock();
+        try {
+            // One linear merge per list: O(N + M) for N cached elements and M values
+            for (Map.Entry<String, Entry<List<V>>> e : listCache.entrySet()) {
+                List<V> next = new ArrayList<>(e.getValue().value.size() + batch.size());
+                int b = 0;
+                for (V existing : e.getValue().value) {
+                    if (byKey.containsKey(listKey.apply(existing))) {
+                        continue;
+                    }
+                    while (b < batch.size() && listOrder.compare(batch.get(b), existing) < 0) {
+                        next.add(batch.get(b++));
+                    }
+                    next.add(existing);
+                }
+                next.addAll(batch.subList(b, batch.size()));
+                replaceSnapshot(e, next);
+            }
+            evictListsToFit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies a delete to every cached list
+    public void removeFromLists(K key) {
+        writeGeneration.incrementAndGet();
+        if (listKey == null) {
+            invalidateListCaches();
+            return;
+        }
+        lock.lock();
+        try {
+            for (Map.Entry<String, Entry<List<V>>> e : listCache.entrySet()) {
+                List<V> current = e.getValue().value;
+                List<V> next = new ArrayList<>(current.size());
+                for (V existing : current) {
+                    if (!key.equals(listKey.apply(existing))) {
+                        next.add(existing);
+                    }
+                }
+                if (next.size() != current.size()) {
+                    replaceSnapshot(e, next);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Keeps the original write time so a delta never extends the list's time-to-live
+    private void replaceSnapshot(Map.Entry<String, Entry<List<V>>> e, List<V> next) {
+        Entry<List<V>> old = e.getValue();
+        totalListElements += next.size() - old.weight;
+        e.setValue(new Entry<>(Collections.unmodifiableList(next), next.size(), old.writeTime, old.accessTime));
     }
 
     // Clear all caches
     public void clear() {
-        cache.clear();
-        listCache.clear();
+        writeGeneration.incrementAndGet();
+        lock.lock();
+        try {
+            invalidations.add(cache.size() + listCache.size());
+            cache.clear();
+            listCache.clear();
+            totalWeight = 0;
+            totalListElements = 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
     // Invalidate all list caches (useful after updates)
     public void invalidateListCaches() {
-        listCache.clear();
+        writeGeneration.incrementAndGet();
+        lock.lock();
+        try {
+            invalidations.add(listCache.size());
+            listCache.clear();
+            totalListElements = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes every expired entry now instead of waiting for it to be touched
+    public void cleanUp() {
+        List<Removal<K, V>> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<K, Entry<V>>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (isExpired(e.getValue(), now)) {
+                    it.remove();
+                    totalWeight -= e.getValue().weight;
+                    removals.add(new Removal<>(e.getKey(), e.getValue().value, RemovalCause.EXPIRED));
+                }
+            }
+            Iterator<Entry<List<V>>> lists = listCache.values().iterator();
+            while (lists.hasNext()) {
+                Entry<List<V>> entry = lists.next();
+                if (isExpired(entry, now)) {
+                    lists.remove();
+                    totalListElements -= entry.weight;
+                    expirations.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+            notifyListeners(removals);
+        }
     }
 
     public int size() {
-        return cache.size();
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long weight() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public int listCacheSize() {
-        return listCache.size();
+        lock.lock();
+        try {
+            return listCache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Elements held across all cached lists
+    public long listElementCount() {
+        lock.lock();
+        try {
+            return totalListElements;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Time spent fetching a value from the database after a miss
+    private void recordLoad(long nanos) {
+        loadLatency.record(nanos);
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadLatency.count(), loadLatency.meanMillis(),
+                loadLatency.percentileMillis(99), evictions.sum(), rejections.sum(), expirations.sum(), invalidations.sum(),
+                size(), listCacheSize());
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        rejections.reset();
+        expirations.reset();
+        invalidations.reset();
+        loadLatency.reset();
+        lookupLatency.reset();
     }
 
     public String getCacheStatus() {
-        return String.format("Items: %d | Lists: %d", cache.size(), listCache.size());
+        return getStats().toString();
     }
 
     public boolean isEmpty() {
-        return cache.isEmpty() && listCache.isEmpty();
+        lock.lock();
+        try {
+            return cache.isEmpty() && listCache.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLookup(boolean hit, long start) {
+        (hit ? hits : misses).increment();
+        lookupLatency.record(System.nanoTime() - start);
+    }
+
+    private void recordAccess(K key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+    }
+
+    // TinyLFU admission: when the cache is full, a new key must be more popular than the entry it would push out
+    private boolean admit(K key, int weight, long now, List<Removal<K, V>> removals) {
+        if (weight > maximumWeight) {
+            return false;
+        }
+        if (sketch == null || totalWeight + weight <= maximumWeight || cache.isEmpty()) {
+            return true;
+        }
+        // Expired entries make room for free
+        expireStale(now, removals);
+        if (totalWeight + weight <= maximumWeight) {
+            return true;
+        }
+        K victim = cache.keySet().iterator().next();
+        return sketch.frequency(key) > sketch.frequency(victim);
+    }
+
+    // Drops expired entries from the least recently used end; stops at the first live one
+    private void expireStale(long now, List<Removal<K, V>> removals) {
+        if (expireAfterWriteNanos == 0 && expireAfterAccessNanos == 0) {
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (!isExpired(e.getValue(), now)) {
+                break;
+            }
+            it.remove();
+            totalWeight -= e.getValue().weight;
+            removals.add(new Removal<>(e.getKey(), e.getValue().value, RemovalCause.EXPIRED));
+        }
+    }
+
+    private void evictToFit(List<Removal<K, V>> removals) {
+        Iterator<Map.Entry<K, Entry<V>>> it = cache.entrySet().iterator();
+        while (totalWeight > maximumWeight && it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            it.remove();
+            totalWeight -= e.getValue().weight;
+            removals.add(new Removal<>(e.getKey(), e.getValue().value, RemovalCause.SIZE));
+        }
+    }
+
+    private boolean isExpired(Entry<?> entry, long now) {
+        return (expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - entry.accessTime >= expireAfterAccessNanos);
+    }
+
+    // Listeners run on the calling thread after the lock is released
+    private void notifyListeners(List<Removal<K, V>> removals) {
+        for (Removal<K, V> removal : removals) {
+            (removal.cause() == RemovalCause.SIZE ? evictions : expirations).increment();
+            for (EvictionListener<K, V> listener : listeners) {
+                try {
+                    listener.onEviction(removal.key(), removal.value(), removal.cause());
+                } catch (RuntimeException e) {
+                    System.err.println("Cache eviction listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("org.example:type=Cache,name=" + ObjectName.quote(name));
+            StatsBean bean = new StatsBean();
+            try {
+                server.registerMBean(bean, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                // A rebuilt cache replaces the previous one under the same name
+                server.unregisterMBean(objectName);
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register cache MBean '" + name + "': " + e.getMessage());
+        }
+    }
+
+    private class StatsBean implements CacheStatsMXBean {
+        @Override public long getHitCount() { return hits.sum(); }
+        @Override public long getMissCount() { return misses.sum(); }
+        @Override public double getHitRate() { return getStats().hitRate(); }
+        @Override public long getLoadCount() { return loadLatency.count(); }
+        @Override public double getAverageLoadMillis() { return loadLatency.meanMillis(); }
+        @Override public double getLoadP50Millis() { return loadLatency.percentileMillis(50); }
+        @Override public double getLoadP99Millis() { return loadLatency.percentileMillis(99); }
+        @Override public double getLookupP99Millis() { return lookupLatency.percentileMillis(99); }
+        @Override public long getEvictionCount() { return evictions.sum(); }
+        @Override public long getRejectedListCount() { return rejections.sum(); }
+        @Override public long getExpirationCount() { return expirations.sum(); }
+        @Override public long getInvalidationCount() { return invalidations.sum(); }
+        @Override public int getSize() { return size(); }
+        @Override public long getWeight() { return weight(); }
+        @Override public long getMaximumWeight() { return maximumWeight; }
+        @Override public int getListCount() { return listCacheSize(); }
+        @Override public long getListElementCount() { return listElementCount(); }
+        @Override public long getMaximumListElements() { return maximumListElements; }
+        @Override public void resetStats() { CacheManager.this.resetStats(); }
+    }
+
+    public static class Builder<K, V> {
+        private String name;
+        private long maximumWeight = DEFAULT_MAXIMUM_SIZE;
+        private int maximumLists = DEFAULT_MAXIMUM_LISTS;
+        private long maximumListElements = DEFAULT_MAXIMUM_LIST_ELEMENTS;
+        private Duration expireAfterWrite = DEFAULT_EXPIRE_AFTER_WRITE;
+        private Duration expireAfterAccess;
+        private Duration refreshAfterWrite;
+        private EvictionPolicy policy = EvictionPolicy.TINY_LFU;
+        private Weigher<K, V> weigher = (key, value) -> 1;
+        private final List<EvictionListener<K, V>> listeners = new ArrayList<>();
+        private Function<V, K> listKey;
+        private Comparator<V> listOrder;
+
+        private Builder() {
+        }
+
+        // Names the cache and publishes its statistics over JMX as org.example:type=Cache,name=<name>
+        public Builder<K, V> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        // Bound by entry count (every entry weighs 1)
+        public Builder<K, V> maximumSize(long maximumSize) {
+            this.maximumWeight = requirePositive(maximumSize, "maximumSize");
+            this.weigher = (key, value) -> 1;
+            return this;
+        }
+
+        // Bound by total weight as computed by the weigher
+        public Builder<K, V> maximumWeight(long maximumWeight, Weigher<K, V> weigher) {
+            this.maximumWeight = requirePositive(maximumWeight, "maximumWeight");
+            this.weigher = Objects.requireNonNull(weigher, "weigher");
+            return this;
+        }
+
+        public Builder<K, V> maximumLists(int maximumLists) {
+            this.maximumLists = (int) requirePositive(maximumLists, "maximumLists");
+            return this;
+        }
+
+        // Bound on the elements held across all cached lists; a list bigger than this is not cached at all
+        public Builder<K, V> maximumListElements(long maximumListElements) {
+            this.maximumListElements = requirePositive(maximumListElements, "maximumListElements");
+            return this;
+        }
+
+        // Time-to-live: entries expire this long after they were written (null disables)
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWrite = duration;
+            return this;
+        }
+
+        // Time-to-idle: entries expire this long after they were last read or written (null disables)
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccess = duration;
+            return this;
+        }
+
+        // Refresh-ahead: getOrLoad/getListOrLoad reload entries older than this in the background (null disables).
+        // Should be shorter than expireAfterWrite so hot entries are replaced before they expire.
+        public Builder<K, V> refreshAfterWrite(Duration duration) {
+            this.refreshAfterWrite = duration;
+            return this;
+        }
+
+        public Builder<K, V> evictionPolicy(EvictionPolicy policy) {
+            this.policy = Objects.requireNonNull(policy, "policy");
+            return this;
+        }
+
+        public Builder<K, V> evictionListener(EvictionListener<K, V> listener) {
+            listeners.add(Objects.requireNonNull(listener, "listener"));
+            return this;
+        }
+
+        // Lets list caches be updated in place: key identifies an element, order is the order the lists are kept in.
+        // Every cached list is then assumed to hold the complete collection (e.g. "all_patients").
+        public Builder<K, V> listElements(Function<V, K> key, Comparator<V> order) {
+            this.listKey = Objects.requireNonNull(key, "key");
+            this.listOrder = Objects.requireNonNull(order, "order");
+            return this;
+        }
+
+        public CacheManager<K, V> build() {
+            return new CacheManager<>(this);
+        }
+
+        private static long requirePositive(long value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
     }
 }
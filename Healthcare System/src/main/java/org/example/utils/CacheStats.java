@@ -0,0 +1,18 @@
+package org.example.utils;
+
+// Point-in-time copy of a CacheManager's counters. rejectedLists counts lists too large to be cached at all.
+public record CacheStats(long hits, long misses, long loads, double averageLoadMillis, double loadP99Millis,
+                         long evictions, long rejectedLists, long expirations, long invalidations, int size, int lists) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Items: %d | Lists: %d | Hit rate: %.0f%% (%d/%d) | Load avg %.1fms p99 %.1fms | Evicted: %d | Rejected lists: %d | Expired: %d | Invalidated: %d",
+                size, lists, hitRate() * 100, hits, hits + misses, averageLoadMillis, loadP99Millis,
+                evictions, rejectedLists, expirations, invalidations);
+    }
+}
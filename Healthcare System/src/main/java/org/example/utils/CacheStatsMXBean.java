@@ -0,0 +1,24 @@
+package org.example.utils;
+
+// JMX view of a CacheManager, registered as org.example:type=Cache,name=<cache name>
+public interface CacheStatsMXBean {
+    long getHitCount();
+    long getMissCount();
+    double getHitRate();
+    long getLoadCount();
+    double getAverageLoadMillis();
+    double getLoadP50Millis();
+    double getLoadP99Millis();
+    double getLookupP99Millis();
+    long getEvictionCount();
+    long getRejectedListCount();
+    long getExpirationCount();
+    long getInvalidationCount();
+    int getSize();
+    long getWeight();
+    long getMaximumWeight();
+    int getListCount();
+    long getListElementCount();
+    long getMaximumListElements();
+    void resetStats();
+}
@@ -3,7 +3,7 @@ package org.example.utils;
 import org.example.models.*;
 import org.example.services.*;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -15,12 +15,12 @@ public class DataSeeder {
     
     private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Thompson", "White", "Harris", "Clark", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts", "Gomez", "Phillips", "Evans"};
     
-    public static void seedData(Connection conn) {
+    public static void seedData(DataSource dataSource) {
         try {
-            DepartmentService deptService = DepartmentService.getInstance(conn);
-            PatientService patientService = PatientService.getInstance(conn);
-            DoctorService doctorService = DoctorService.getInstance(conn);
-            AppointmentService appointmentService = AppointmentService.getInstance(conn);
+            DepartmentService deptService = DepartmentService.getInstance(dataSource);
+            PatientService patientService = PatientService.getInstance(dataSource);
+            DoctorService doctorService = DoctorService.getInstance(dataSource);
+            AppointmentService appointmentService = AppointmentService.getInstance(dataSource);
             
             System.out.println("Seeding database with sample data...");
             
@@ -37,7 +37,7 @@ public class DataSeeder {
             }
             
             // Seed 50 Patients
-            List<Integer> patientIds = new ArrayList<>();
+            List<Patient> patients = new ArrayList<>();
             for (int i = 0; i < 50; i++) {
                 String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
                 String lastName = LAST_NAMES[i % LAST_NAMES.length];
@@ -47,16 +47,15 @@ public class DataSeeder {
                 String phone = String.format("%010d", 1000000000L + i);
                 String address = (100 + i) + " Main St, City " + (i % 10);
                 
-                Patient patient = new Patient(firstName, lastName, dob, gender, email, phone, address);
-                patientService.registerPatient(patient);
-                patientIds.add(patient.getPatientID());
+                patients.add(new Patient(firstName, lastName, dob, gender, email, phone, address));
             }
+            List<Integer> patientIds = patientService.registerPatients(patients);
             
             // Seed 15 Doctors
             String[] docFirstNames = {"Sarah", "Robert", "Lisa", "James", "Maria", "David", "Jennifer", "Michael", "Patricia", "William", "Linda", "Richard", "Barbara", "Thomas", "Susan"};
             String[] docLastNames = {"Anderson", "Martinez", "Taylor", "White", "Garcia", "Brown", "Wilson", "Moore", "Jackson", "Thomas", "Lee", "Harris", "Clark", "Lewis", "Robinson"};
             
-            List<Integer> doctorIds = new ArrayList<>();
+            List<Doctor> doctors = new ArrayList<>();
             for (int i = 0; i < 15; i++) {
                 String firstName = docFirstNames[i];
                 String lastName = docLastNames[i];
@@ -65,12 +64,12 @@ public class DataSeeder {
                 String email = "dr." + firstName.toLowerCase() + "." + lastName.toLowerCase() + "@hospital.com";
                 LocalDate hireDate = LocalDate.of(2010 + (i % 13), (i % 12) + 1, (i % 28) + 1);
                 
-                Doctor doctor = new Doctor(firstName, lastName, deptId, phone, email, hireDate);
-                doctorService.addDoctor(doctor);
-                doctorIds.add(doctor.getDoctorID());
+                doctors.add(new Doctor(firstName, lastName, deptId, phone, email, hireDate));
             }
+            List<Integer> doctorIds = doctorService.addDoctors(doctors);
             
             // Seed 20 Appointments
+            List<Appointment> appointments = new ArrayList<>();
             for (int i = 0; i < 20; i++) {
                 int patientId = patientIds.get(i % 50);
                 int doctorId = doctorIds.get(i % 15);
@@ -78,9 +77,9 @@ public class DataSeeder {
                 LocalTime apptTime = LocalTime.of(9 + (i % 8), (i % 4) * 15);
                 String status = i % 3 == 0 ? "Completed" : "Scheduled";
                 
-                Appointment appointment = new Appointment(patientId, doctorId, apptDate, apptTime, status);
-                appointmentService.scheduleAppointment(appointment);
+                appointments.add(new Appointment(patientId, doctorId, apptDate, apptTime, status));
             }
+            appointmentService.scheduleAppointments(appointments);
             
             System.out.println("✓ Database seeded successfully!");
             System.out.println("  - 10 Departments");
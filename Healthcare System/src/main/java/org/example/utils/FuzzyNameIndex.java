@@ -0,0 +1,250 @@
+package org.example.utils;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typo-tolerant name lookup. Name words are indexed three ways: exactly, by sound (PhoneticKey) and in a
+// BK-tree for bounded edit distance, so "Jonson" finds "Johnson" without comparing against every record.
+// A date of birth narrows the candidates to the handful of records born that day before any name is scored.
+// Only ids, name words and birth dates are kept; callers look the matched ids up in their own cache.
+public class FuzzyNameIndex {
+    // Cost of a sound-alike match whose spelling is further away than the edit budget
+    private static final double PHONETIC_COST = 1.5;
+    // Rebuild the BK-tree once removed words outnumber live ones
+    private static final int MIN_DEAD_WORDS_FOR_REBUILD = 1_000;
+
+    private final Map<Integer, List<String>> wordsById = new HashMap<>();
+    private final Map<String, Set<Integer>> idsByWord = new HashMap<>();
+    // Sound key -> distinct words, so each word is encoded once rather than once per record
+    private final Map<String, Set<String>> wordsBySound = new HashMap<>();
+    private final Map<Integer, LocalDate> dobById = new HashMap<>();
+    private final Map<LocalDate, Set<Integer>> idsByDob = new HashMap<>();
+    private BKTree words = new BKTree();
+    private int deadWords;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds a record, or replaces the record with the same id
+    public void put(Integer id, List<String> names, LocalDate dob) {
+        lock.writeLock().lock();
+        try {
+            index(id, names, dob);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            if (deadWords > MIN_DEAD_WORDS_FOR_REBUILD && deadWords > idsByWord.size()) {
+                rebuildTree();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return wordsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the best matches first. Every query word has to match one of the record's name words exactly, within the
+    // edit budget or by sound; the record's cost is the sum of its per-word costs. With a date of birth only
+    // records born that day are considered.
+    public List<Integer> search(String name, LocalDate dob, int limit) {
+        List<String> terms = normalize(name);
+        if (limit <= 0 || (terms.isEmpty() && dob == null)) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> costs = dob != null ? scoreBornOn(dob, terms) : scoreByName(terms);
+            List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(costs.entrySet());
+            ranked.sort(Map.Entry.<Integer, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+            List<Integer> results = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Map.Entry<Integer, Double> entry : ranked) {
+                results.add(entry.getKey());
+                if (results.size() == limit) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Few records share a birthday, so each one is scored directly
+    private Map<Integer, Double> scoreBornOn(LocalDate dob, List<String> terms) {
+        Map<Integer, Double> costs = new HashMap<>();
+        for (Integer id : idsByDob.getOrDefault(dob, Set.of())) {
+            double total = 0;
+            for (String term : terms) {
+                total += bestCost(term, wordsById.get(id));
+                if (Double.isInfinite(total)) {
+                    break;
+                }
+            }
+            if (!Double.isInfinite(total)) {
+                costs.put(id, total);
+            }
+        }
+        return costs;
+    }
+
+    private Map<Integer, Double> scoreByName(List<String> terms) {
+        Map<Integer, Double> costs = null;
+        for (String term : terms) {
+            Map<Integer, Double> termCosts = new HashMap<>();
+            for (BKTree.Match match : words.search(term, maxEdits(term))) {
+                for (Integer id : idsByWord.getOrDefault(match.word(), Set.of())) {
+                    termCosts.merge(id, (double) match.distance(), Math::min);
+                }
+            }
+            for (String word : wordsBySound.getOrDefault(PhoneticKey.encode(term), Set.of())) {
+                for (Integer id : idsByWord.get(word)) {
+                    termCosts.merge(id, PHONETIC_COST, Math::min);
+                }
+            }
+
+            if (costs == null) {
+                costs = termCosts;
+            } else {
+                // Keep only records that also matched this word
+                Map<Integer, Double> combined = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : costs.entrySet()) {
+                    Double cost = termCosts.get(entry.getKey());
+                    if (cost != null) {
+                        combined.put(entry.getKey(), entry.getValue() + cost);
+                    }
+                }
+                costs = combined;
+            }
+            if (costs.isEmpty()) {
+                break;
+            }
+        }
+        return costs;
+    }
+
+    private static double bestCost(String term, List<String> recordWords) {
+        double best = Double.POSITIVE_INFINITY;
+        int budget = maxEdits(term);
+        String sound = PhoneticKey.encode(term);
+        for (String word : recordWords) {
+            int distance = BKTree.distance(term, word);
+            if (distance <= budget) {
+                best = Math.min(best, distance);
+            } else if (!sound.isEmpty() && sound.equals(PhoneticKey.encode(word))) {
+                best = Math.min(best, PHONETIC_COST);
+            }
+        }
+        return best;
+    }
+
+    // Short words allow fewer typos, otherwise everything would match them
+    private static int maxEdits(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    private void index(Integer id, List<String> names, LocalDate dob) {
+        unindex(id);
+        List<String> recordWords = new ArrayList<>();
+        for (String name : names) {
+            for (String word : normalize(name)) {
+                if (!recordWords.contains(word)) {
+                    recordWords.add(word);
+                }
+            }
+        }
+        for (String word : recordWords) {
+            Set<Integer> ids = idsByWord.get(word);
+            if (ids == null) {
+                ids = new HashSet<>();
+                idsByWord.put(word, ids);
+                if (!words.add(word)) {
+                    // The word was still in the tree from an earlier record
+                    deadWords--;
+                }
+                String sound = PhoneticKey.encode(word);
+                if (!sound.isEmpty()) {
+                    wordsBySound.computeIfAbsent(sound, k -> new HashSet<>()).add(word);
+                }
+            }
+            ids.add(id);
+        }
+        if (dob != null) {
+            idsByDob.computeIfAbsent(dob, d -> new HashSet<>()).add(id);
+            dobById.put(id, dob);
+        }
+        wordsById.put(id, recordWords);
+    }
+
+    private void unindex(Integer id) {
+        List<String> recordWords = wordsById.remove(id);
+        if (recordWords == null) {
+            return;
+        }
+        for (String word : recordWords) {
+            if (removeId(idsByWord, word, id)) {
+                // BK-trees cannot delete, so the word stays in the tree until the next rebuild
+                deadWords++;
+                removeId(wordsBySound, PhoneticKey.encode(word), word);
+            }
+        }
+        LocalDate dob = dobById.remove(id);
+        if (dob != null) {
+            removeId(idsByDob, dob, id);
+        }
+    }
+
+    // Returns true when the key has no ids left and was dropped
+    private static <K, V> boolean removeId(Map<K, Set<V>> map, K key, V id) {
+        Set<V> ids = map.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            map.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private void rebuildTree() {
+        BKTree tree = new BKTree();
+        for (String word : idsByWord.keySet()) {
+            tree.add(word);
+        }
+        words = tree;
+        deadWords = 0;
+    }
+
+    private static List<String> normalize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        // Hand-rolled split on non-letters; this runs for every name when the index is built
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetter(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                result.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.utils;
+
+import java.util.Locale;
+
+// Metaphone-style sound key: names that are spelled differently but sound alike ("Jonson", "Johnson",
+// "Jonsen") get the same key. Covers the common English spelling rules, not the full Double Metaphone set.
+public class PhoneticKey {
+    private static final int MAX_LENGTH = 6;
+
+    private PhoneticKey() {
+    }
+
+    public static String encode(String name) {
+        if (name == null) {
+            return "";
+        }
+        String word = name.toUpperCase(Locale.ROOT).replaceAll("[^A-Z]", "");
+        if (word.isEmpty()) {
+            return "";
+        }
+        // Silent or shifted first letters
+        if (word.startsWith("AE") || word.startsWith("GN") || word.startsWith("KN")
+                || word.startsWith("PN") || word.startsWith("WR")) {
+            word = word.substring(1);
+        } else if (word.charAt(0) == 'X') {
+            word = "S" + word.substring(1);
+        } else if (word.startsWith("WH")) {
+            word = "W" + word.substring(2);
+        }
+
+        StringBuilder key = new StringBuilder();
+        int length = word.length();
+        for (int i = 0; i < length && key.length() < MAX_LENGTH; i++) {
+            char c = word.charAt(i);
+            if (c != 'C' && i > 0 && word.charAt(i - 1) == c) {
+                continue;
+            }
+            switch (c) {
+                case 'A', 'E', 'I', 'O', 'U' -> {
+                    if (i == 0) {
+                        key.append('A');
+                    }
+                }
+                case 'B' -> {
+                    if (!(i == length - 1 && i > 0 && word.charAt(i - 1) == 'M')) {
+                        key.append('B');
+                    }
+                }
+                case 'C' -> {
+                    if (at(word, i + 1) == 'H') {
+                        key.append(i > 0 && word.charAt(i - 1) == 'S' ? 'K' : 'X');
+                        i++;
+                    } else if (at(word, i + 1) == 'I' && at(word, i + 2) == 'A') {
+                        key.append('X');
+                    } else if (isOneOf(at(word, i + 1), "IEY")) {
+                        if (!(i > 0 && word.charAt(i - 1) == 'S')) {
+                            key.append('S');
+                        }
+                    } else {
+                        key.append('K');
+                    }
+                }
+                case 'D' -> {
+                    if (at(word, i + 1) == 'G' && isOneOf(at(word, i + 2), "EIY")) {
+                        key.append('J');
+                        i++;
+                    } else {
+                        key.append('T');
+                    }
+                }
+                case 'G' -> {
+                    if (at(word, i + 1) == 'H' && !isVowel(at(word, i + 2))) {
+                        // "Wright", "Hugh": silent
+                        i++;
+                    } else if (at(word, i + 1) == 'N' && (i + 2 == length || word.startsWith("ED", i + 2))) {
+                        // "Sign", "Signed": silent
+                    } else if (isOneOf(at(word, i + 1), "IEY")) {
+                        key.append('J');
+                    } else {
+                        key.append('K');
+                    }
+                }
+                case 'H' -> {
+                    if (isVowel(at(word, i + 1)) && !(i > 0 && isOneOf(word.charAt(i - 1), "CSPTG"))) {
+                        key.append('H');
+                    }
+                }
+                case 'K' -> {
+                    if (!(i > 0 && word.charAt(i - 1) == 'C')) {
+                        key.append('K');
+                    }
+                }
+                case 'P' -> {
+                    if (at(word, i + 1) == 'H') {
+                        key.append('F');
+                        i++;
+                    } else {
+                        key.append('P');
+                    }
+                }
+                case 'Q' -> key.append('K');
+                case 'S' -> {
+                    if (at(word, i + 1) == 'H') {
+                        key.append('X');
+                        i++;
+                    } else if (at(word, i + 1) == 'I' && isOneOf(at(word, i + 2), "OA")) {
+                        key.append('X');
+                    } else {
+                        key.append('S');
+                    }
+                }
+                case 'T' -> {
+                    if (at(word, i + 1) == 'I' && isOneOf(at(word, i + 2), "OA")) {
+                        key.append('X');
+                    } else if (at(word, i + 1) == 'H') {
+                        key.append('0');
+                        i++;
+                    } else if (!(at(word, i + 1) == 'C' && at(word, i + 2) == 'H')) {
+                        key.append('T');
+                    }
+                }
+                case 'V' -> key.append('F');
+                case 'W', 'Y' -> {
+                    if (isVowel(at(word, i + 1))) {
+                        key.append(c);
+                    }
+                }
+                case 'X' -> key.append("KS");
+                case 'Z' -> key.append('S');
+                default -> key.append(c);
+            }
+        }
+        return key.length() > MAX_LENGTH ? key.substring(0, MAX_LENGTH) : key.toString();
+    }
+
+    private static char at(String word, int index) {
+        return index < word.length() ? word.charAt(index) : 0;
+    }
+
+    private static boolean isVowel(char c) {
+        return isOneOf(c, "AEIOU");
+    }
+
+    private static boolean isOneOf(char c, String letters) {
+        return c != 0 && letters.indexOf(c) >= 0;
+    }
+}
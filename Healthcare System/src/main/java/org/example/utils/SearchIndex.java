@@ -0,0 +1,173 @@
+package org.example.utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-memory type-ahead index. Every indexed field is split into lowercase tokens kept in a sorted
+// dictionary (token -> ids), so a prefix query is a range lookup rather than a scan over all records.
+// Records are added, replaced and removed one at a time, so the index can follow service writes.
+public class SearchIndex<T> {
+    private final Function<T, Integer> idOf;
+    private final Function<T, List<String>> fieldsOf;
+
+    private final TreeMap<String, Set<Integer>> postings = new TreeMap<>();
+    private final Map<Integer, T> items = new HashMap<>();
+    private final Map<Integer, Set<String>> tokensById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SearchIndex(Function<T, Integer> idOf, Function<T, List<String>> fieldsOf) {
+        this.idOf = idOf;
+        this.fieldsOf = fieldsOf;
+    }
+
+    public void putAll(Collection<T> records) {
+        lock.writeLock().lock();
+        try {
+            for (T record : records) {
+                index(record);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds a record, or replaces the record with the same id
+    public void put(T record) {
+        lock.writeLock().lock();
+        try {
+            index(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every query word must prefix-match a token of the record. Exact token matches come first, then
+    // prefix matches in token order; the walk stops as soon as the limit is reached.
+    public List<T> search(String query, int limit) {
+        List<String> terms = queryTerms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // The longest word is usually the most selective, so its range is the one walked
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+        String lead = terms.get(0);
+        List<String> others = terms.subList(1, terms.size());
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> seen = new HashSet<>();
+            List<T> results = new ArrayList<>(Math.min(limit, 64));
+            for (Set<Integer> ids : postings.subMap(lead, true, lead + Character.MAX_VALUE, false).values()) {
+                for (Integer id : ids) {
+                    if (seen.add(id) && matchesAll(tokensById.get(id), others)) {
+                        results.add(items.get(id));
+                        if (results.size() == limit) {
+                            return results;
+                        }
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(T record) {
+        Integer id = idOf.apply(record);
+        unindex(id);
+        Set<String> tokens = new HashSet<>();
+        for (String field : fieldsOf.apply(record)) {
+            addTokens(field, tokens);
+        }
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new HashSet<>()).add(id);
+        }
+        items.put(id, record);
+        tokensById.put(id, tokens);
+    }
+
+    private void unindex(Integer id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Integer> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        items.remove(id);
+    }
+
+    private static boolean matchesAll(Set<String> tokens, List<String> terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A field yields its words ("john.doe@x.com" -> john, doe, x, com), the whole value without spaces,
+    // and its digits alone, so phone numbers match however they were typed
+    private static void addTokens(String field, Set<String> tokens) {
+        if (field == null || field.isBlank()) {
+            return;
+        }
+        String lower = field.toLowerCase(Locale.ROOT).trim();
+        for (String word : lower.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                tokens.add(word);
+            }
+        }
+        tokens.add(lower.replaceAll("\\s+", ""));
+        String digits = lower.replaceAll("\\D", "");
+        if (!digits.isEmpty()) {
+            tokens.add(digits);
+        }
+    }
+
+    private static List<String> queryTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            // "555-12" is looked up as the digits it contains
+            boolean numeric = term.chars().noneMatch(Character::isLetter) && term.chars().anyMatch(Character::isDigit);
+            terms.add(numeric ? term.replaceAll("\\D", "") : term);
+        }
+        return terms;
+    }
+}
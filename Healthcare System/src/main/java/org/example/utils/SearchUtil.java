@@ -2,6 +2,7 @@ package org.example.utils;
 
 import org.example.models.*;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class SearchUtil {
@@ -28,33 +29,40 @@ public class SearchUtil {
             return doctors;
         }
         
-        String lowerQuery = query.toLowerCase().trim();
         return doctors.stream()
-            .filter(d -> 
-                d.getDoctorID().toString().contains(lowerQuery) ||
-                d.getFirstName().toLowerCase().contains(lowerQuery) ||
-                d.getLastName().toLowerCase().contains(lowerQuery) ||
-                d.getEmail().toLowerCase().contains(lowerQuery) ||
-                d.getPhone().contains(lowerQuery)
-            )
+            .filter(doctorMatcher(query))
             .collect(Collectors.toList());
     }
 
+    // Predicate form, e.g. for a FilteredList over a cached snapshot
+    public static Predicate<Doctor> doctorMatcher(String query) {
+        String lowerQuery = query.toLowerCase().trim();
+        return d -> 
+            d.getDoctorID().toString().contains(lowerQuery) ||
+            d.getFirstName().toLowerCase().contains(lowerQuery) ||
+            d.getLastName().toLowerCase().contains(lowerQuery) ||
+            d.getEmail().toLowerCase().contains(lowerQuery) ||
+            d.getPhone().contains(lowerQuery);
+    }
+
     public static List<Department> searchDepartments(List<Department> departments, String query) {
         if (query == null || query.trim().isEmpty()) {
             return departments;
         }
         
-        String lowerQuery = query.toLowerCase().trim();
         return departments.stream()
-            .filter(d -> 
-                d.getDepartmentID().toString().contains(lowerQuery) ||
-                d.getName().toLowerCase().contains(lowerQuery) ||
-                (d.getDescription() != null && d.getDescription().toLowerCase().contains(lowerQuery))
-            )
+            .filter(departmentMatcher(query))
             .collect(Collectors.toList());
     }
 
+    public static Predicate<Department> departmentMatcher(String query) {
+        String lowerQuery = query.toLowerCase().trim();
+        return d -> 
+            d.getDepartmentID().toString().contains(lowerQuery) ||
+            d.getName().toLowerCase().contains(lowerQuery) ||
+            (d.getDescription() != null && d.getDescription().toLowerCase().contains(lowerQuery));
+    }
+
     public static List<Appointment> searchAppointments(List<Appointment> appointments, String query) {
         if (query == null || query.trim().isEmpty()) {
             return appointments;
@@ -13,6 +13,12 @@ public class SessionManager {
         return currentUser;
     }
 
+    // Recorded as the actor on audit entries; work done outside a login session is attributed to "System"
+    public static String getCurrentUsername() {
+        User user = currentUser;
+        return user != null ? user.getUsername() : "System";
+    }
+
     public static boolean isLoggedIn() {
         return currentUser != null;
     }